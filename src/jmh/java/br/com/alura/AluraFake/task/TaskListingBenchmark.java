@@ -0,0 +1,67 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.task.dto.TaskListItemDTO;
+import br.com.alura.AluraFake.task.dto.TaskListRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and serializing the {@code GET /course/{id}/tasks} payload from the listing join rows.
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="TaskListingBenchmark"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskListingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int tasks;
+
+    private ObjectMapper objectMapper;
+    private List<TaskListRow> rows;
+    private List<TaskListItemDTO> items;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+
+        // Same mix as a real course: a third of each type, choice tasks with four options
+        rows = new ArrayList<>();
+        long optionId = 1;
+        for (long taskId = 1; taskId <= tasks; taskId++) {
+            Type type = Type.values()[(int) (taskId % Type.values().length)];
+            String statement = "Enunciado da tarefa número " + taskId;
+            if (Type.OPEN_TEXT.equals(type)) {
+                rows.add(new TaskListRow(taskId, statement, type, null, null, null));
+                continue;
+            }
+            for (int option = 0; option < 4; option++) {
+                rows.add(new TaskListRow(taskId, statement, type, optionId++, "Alternativa " + option, option == 0));
+            }
+        }
+        items = TaskListItemDTO.fromRows(rows);
+    }
+
+    @Benchmark
+    public List<TaskListItemDTO> fromRows() {
+        return TaskListItemDTO.fromRows(rows);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public byte[] fromRowsAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(TaskListItemDTO.fromRows(rows));
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.task.dto.NewMultipleChoiceDTO;
+import br.com.alura.AluraFake.task.dto.OptionDTO;
+import br.com.alura.AluraFake.util.ErrorItemDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request validation of new tasks. Run with
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="TaskValidationBenchmark"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskValidationBenchmark {
+
+    private TaskService taskService;
+
+    private String statement;
+    private List<OptionDTO> singleChoiceOptions;
+    private List<OptionDTO> multipleChoiceOptions;
+    private List<OptionDTO> duplicatedOptions;
+    private NewMultipleChoiceDTO multipleChoiceDTO;
+
+    @Setup
+    public void setup() {
+        // Validators never touch the repositories
+        taskService = new TaskService(null, null, null, null, null, null, null);
+
+        statement = "Quais linguagens são ensinadas no curso?";
+        singleChoiceOptions = List.of(
+                new OptionDTO("Java", true),
+                new OptionDTO("Python", false),
+                new OptionDTO("Ruby", false)
+        );
+        multipleChoiceOptions = List.of(
+                new OptionDTO("Java", true),
+                new OptionDTO("Spring", true),
+                new OptionDTO("Hibernate", true),
+                new OptionDTO("COBOL", false),
+                new OptionDTO("FORTRAN", false)
+        );
+        duplicatedOptions = List.of(
+                new OptionDTO("Java", true),
+                new OptionDTO("Spring", true),
+                new OptionDTO("  JAVA ", false)
+        );
+
+        multipleChoiceDTO = new NewMultipleChoiceDTO();
+        multipleChoiceDTO.setCourseId(1L);
+        multipleChoiceDTO.setStatement(statement);
+        multipleChoiceDTO.setOrder(1);
+        multipleChoiceDTO.setOptions(multipleChoiceOptions);
+    }
+
+    @Benchmark
+    public ErrorItemDTO validateOptions_singleChoice() {
+        return taskService.validateOptions(singleChoiceOptions, statement, Type.SINGLE_CHOICE);
+    }
+
+    @Benchmark
+    public ErrorItemDTO validateOptions_multipleChoice() {
+        return taskService.validateOptions(multipleChoiceOptions, statement, Type.MULTIPLE_CHOICE);
+    }
+
+    @Benchmark
+    public ErrorItemDTO validateOptionsLowercased_multipleChoice() {
+        return taskService.validateOptionsLowercased(multipleChoiceOptions, statement, false);
+    }
+
+    @Benchmark
+    public ErrorItemDTO validateOptions_duplicated() {
+        return taskService.validateOptions(duplicatedOptions, statement, Type.MULTIPLE_CHOICE);
+    }
+
+    @Benchmark
+    public List<ErrorItemDTO> validateFieldsNotNullOrEmpty() {
+        return taskService.validateFieldsNotNullOrEmpty(multipleChoiceDTO, Type.MULTIPLE_CHOICE);
+    }
+}
@@ -1,5 +1,6 @@
 package br.com.alura.AluraFake.course;
 
+import br.com.alura.AluraFake.user.Role;
 import br.com.alura.AluraFake.user.User;
 import jakarta.persistence.*;
 import org.springframework.util.Assert;
@@ -20,12 +21,22 @@ public class Course {
     @Enumerated(EnumType.STRING)
     private Status status;
     private LocalDateTime publishedAt;
+    @Version
+    private Long version;
 
     @Deprecated
     public Course(){}
 
     public Course(String title, String description, User instructor) {
-        Assert.isTrue(instructor.isInstructor(), "Usuario deve ser um instrutor");
+        this(title, description, instructor, instructor.getRole());
+    }
+
+    /**
+     * For an instructor whose role is already known, so a reference from {@code getReferenceById}
+     * is not loaded just to check it.
+     */
+    Course(String title, String description, User instructor, Role instructorRole) {
+        Assert.isTrue(Role.INSTRUCTOR.equals(instructorRole), "Usuario deve ser um instrutor");
         this.title = title;
         this.instructor = instructor;
         this.description = description;
@@ -67,4 +78,8 @@ public class Course {
     public void setPublishedAt(LocalDateTime publishedAt) {
         this.publishedAt = publishedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
@@ -5,15 +5,20 @@ import br.com.alura.AluraFake.task.Type;
 import br.com.alura.AluraFake.task.dto.TaskListItemDTO;
 import br.com.alura.AluraFake.user.*;
 import br.com.alura.AluraFake.util.ErrorItemDTO;
+import br.com.alura.AluraFake.util.KeysetPage;
+import br.com.alura.AluraFake.util.NdjsonQueryStreamer;
+import br.com.alura.AluraFake.util.OptimisticRetry;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.*;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 public class CourseController {
@@ -21,12 +26,22 @@ public class CourseController {
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
     private final TaskRepository taskRepository;
+    private final NdjsonQueryStreamer ndjsonQueryStreamer;
+    private final CourseTaskListCache courseTaskListCache;
+    private final OptimisticRetry optimisticRetry;
+    private final UserEmailCache userEmailCache;
 
     @Autowired
-    public CourseController(CourseRepository courseRepository, UserRepository userRepository, TaskRepository taskRepository){
+    public CourseController(CourseRepository courseRepository, UserRepository userRepository, TaskRepository taskRepository,
+                            NdjsonQueryStreamer ndjsonQueryStreamer, CourseTaskListCache courseTaskListCache,
+                            OptimisticRetry optimisticRetry, UserEmailCache userEmailCache){
         this.courseRepository = courseRepository;
         this.userRepository = userRepository;
         this.taskRepository = taskRepository;
+        this.ndjsonQueryStreamer = ndjsonQueryStreamer;
+        this.courseTaskListCache = courseTaskListCache;
+        this.optimisticRetry = optimisticRetry;
+        this.userEmailCache = userEmailCache;
     }
 
     @Transactional
@@ -34,88 +49,135 @@ public class CourseController {
     public ResponseEntity createCourse(@Valid @RequestBody NewCourseDTO newCourse) {
 
         //Caso implemente o bonus, pegue o instrutor logado
-        Optional<User> possibleAuthor = userRepository
-                .findByEmail(newCourse.getEmailInstructor())
-                .filter(User::isInstructor);
+        UserEmailCache.CachedUser author = userEmailCache.get(newCourse.getEmailInstructor());
+        if (author == null) {
+            author = userRepository.findByEmail(newCourse.getEmailInstructor())
+                    .map(userEmailCache::put)
+                    .orElse(null);
+        }
 
-        if(possibleAuthor.isEmpty()) {
+        if(author == null || !author.isInstructor()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ErrorItemDTO("emailInstructor", "Usuário não é um instrutor"));
         }
 
-        Course course = new Course(newCourse.getTitle(), newCourse.getDescription(), possibleAuthor.get());
+        // Only referenced: a cached instructor is not loaded, a just-loaded one is already managed
+        Course course = new Course(newCourse.getTitle(), newCourse.getDescription(),
+                userRepository.getReferenceById(author.id()), author.role());
 
         courseRepository.save(course);
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
-    @GetMapping("/course/all")
-    public ResponseEntity<List<CourseListItemDTO>> listCourses() {
-        List<CourseListItemDTO> courses = courseRepository.findAll().stream()
-                .map(CourseListItemDTO::new)
-                .toList();
-        return ResponseEntity.ok(courses);
+    @GetMapping(value = "/course/all", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity listCourses(@RequestParam(name = "limit", required = false) Integer limit,
+                                      @RequestParam(name = "after", required = false) Long after) {
+        int pageSize = limit == null ? KeysetPage.DEFAULT_LIMIT : limit;
+        ErrorItemDTO limitErr = KeysetPage.validateLimit(pageSize);
+        if (limitErr != null) {
+            return ResponseEntity.badRequest().body(limitErr);
+        }
+
+        List<CourseListItemDTO> courses = courseRepository.findListItemsAfter(after == null ? 0L : after, Limit.of(pageSize + 1));
+        return KeysetPage.toResponse(courses, pageSize, CourseListItemDTO::getId);
+    }
+
+    @GetMapping(value = "/course/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCourses() {
+        StreamingResponseBody body = ndjsonQueryStreamer.stream(
+                "SELECT id, title, description, status FROM Course ORDER BY id",
+                (rs, rowNum) -> new CourseListItemDTO(
+                        rs.getLong("id"),
+                        rs.getString("title"),
+                        rs.getString("description"),
+                        rs.getString("status") == null ? null : Status.valueOf(rs.getString("status"))));
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
+    /**
+     * Checks and publishes the course without locking it; if a task write changes the course in
+     * between, the versioned update misses and the whole check is retried.
+     */
     @PostMapping("/course/{id}/publish")
     public ResponseEntity publishCourse(@PathVariable("id") Long id) {
-        Optional<Course> courseOptional = courseRepository.findById(id);
-        if (courseOptional.isEmpty()) {
+        return optimisticRetry.inTransaction(() -> publish(id))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new ErrorItemDTO("id", "Course was changed by another write, try again")));
+    }
+
+    private ResponseEntity publish(Long id) {
+        Optional<CoursePublishSummary> summaryOptional = courseRepository.findPublishSummary(id);
+        if (summaryOptional.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        Course course = courseOptional.get();
-
-        List<TaskListItemDTO> tasks = taskRepository
-                .findByCourseIdOrderByOrderIndexAsc(id)
-                .stream()
-                .map(TaskListItemDTO::new)
-                .toList();
+        CoursePublishSummary summary = summaryOptional.get();
 
-        if (tasks.isEmpty()) {
+        if (summary.getTaskCount() == 0) {
             return ResponseEntity.badRequest().body(new ErrorItemDTO("tasks", "No tasks are present"));
         }
 
-        if (tasks.size() < 3) {
+        if (summary.getTaskCount() < 3) {
             return ResponseEntity.badRequest().body(new ErrorItemDTO("tasks", "At least 3 tasks are required"));
         }
 
-        Set<Type> requiredTypes = Set.of(Type.values());
-        Set<Type> foundTypes = tasks.stream().map(TaskListItemDTO::getType).collect(Collectors.toSet());
-
-        if (!foundTypes.containsAll(requiredTypes)) {
+        if (summary.getTypeCount() < Type.values().length) {
             return ResponseEntity.badRequest().body(new ErrorItemDTO("tasks", "At least 1 task of each type is required"));
         }
 
-        boolean consecutive = tasks.getLast().getOrder() - tasks.getFirst().getOrder() == tasks.size() - 1;
-        if (!consecutive) {
-            return ResponseEntity.badRequest().body(new ErrorItemDTO("order", "Order is not consecutive"));
-        }
-
-        if (!Status.BUILDING.equals(course.getStatus())) {
+        if (!Status.BUILDING.equals(summary.getStatus())) {
             return ResponseEntity.badRequest().body(new ErrorItemDTO("status", "Status is not BUILDING"));
         }
 
-        course.setStatus(Status.PUBLISHED);
-        course.setPublishedAt(LocalDateTime.now());
-
-        courseRepository.save(course);
+        if (courseRepository.publish(id, summary.getVersion(), LocalDateTime.now()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Course.class, id);
+        }
+        courseTaskListCache.evict(id);
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Serves the cached payload bytes as they are. The response carries a strong ETag, so Spring
+     * answers a matching {@code If-None-Match} with 304 straight from the cache entry.
+     */
     @GetMapping("/course/{id}/tasks")
-    public ResponseEntity<List<TaskListItemDTO>> listCourseTasks(@PathVariable("id") Long id) {
-        Optional<Course> course = courseRepository.findById(id);
-        if (course.isEmpty()) {
+    public ResponseEntity<byte[]> listCourseTasks(@PathVariable("id") Long id,
+                                                  @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CourseTaskListCache.Listing listing = courseTaskListCache.get(id, this::loadTaskListing);
+        if (listing == null) {
             return ResponseEntity.notFound().build();
         }
 
-        List<TaskListItemDTO> tasks = taskRepository
-                .findByCourseIdOrderByOrderIndexAsc(id)
-                .stream()
-                .map(TaskListItemDTO::new)
-                .toList();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (listing.gzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.eTag(listing.gzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(listing.gzip());
+        }
+        return response.eTag(listing.etag()).body(listing.json());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 
-        return ResponseEntity.ok(tasks);
+    private CourseTaskListCache.Listing loadTaskListing(Long id) {
+        return courseRepository.findById(id)
+                .map(course -> courseTaskListCache.listing(course.getStatus(),
+                        TaskListItemDTO.fromRows(taskRepository.findListRowsByCourseId(id))))
+                .orElse(null);
     }
 
 }
@@ -18,6 +18,15 @@ public class CourseDetailListItemDTO implements Serializable {
     public CourseDetailListItemDTO() {
     }
 
+    public CourseDetailListItemDTO(Long id, String title, String description, Status status, LocalDateTime publishedAt, Long totalCourseTasks) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.status = status;
+        this.publishedAt = publishedAt;
+        this.totalCourseTasks = Math.toIntExact(totalCourseTasks);
+    }
+
     public Long getId() {
         return id;
     }
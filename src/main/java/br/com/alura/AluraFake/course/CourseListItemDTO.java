@@ -9,11 +9,11 @@ public class CourseListItemDTO implements Serializable {
     private String description;
     private Status status;
 
-    public CourseListItemDTO(Course course) {
-        this.id = course.getId();
-        this.title = course.getTitle();
-        this.description = course.getDescription();
-        this.status = course.getStatus();
+    public CourseListItemDTO(Long id, String title, String description, Status status) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.status = status;
     }
 
     public Long getId() {
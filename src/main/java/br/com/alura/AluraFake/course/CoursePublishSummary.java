@@ -0,0 +1,11 @@
+package br.com.alura.AluraFake.course;
+
+public interface CoursePublishSummary {
+    Status getStatus();
+
+    Long getVersion();
+
+    Long getTaskCount();
+
+    Long getTypeCount();
+}
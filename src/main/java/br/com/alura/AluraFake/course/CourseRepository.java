@@ -1,10 +1,61 @@
 package br.com.alura.AluraFake.course;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface CourseRepository extends JpaRepository<Course, Long>{
 
-    int countByInstructorId(Long instructorId);
-    List<Course> findByInstructorId(Long instructorId);
+    @Query("""
+            SELECT new br.com.alura.AluraFake.course.CourseListItemDTO(c.id, c.title, c.description, c.status)
+            FROM Course c
+            WHERE c.id > :after
+            ORDER BY c.id""")
+    List<CourseListItemDTO> findListItemsAfter(Long after, Limit limit);
+
+    @Query("""
+            SELECT new br.com.alura.AluraFake.course.CourseDetailListItemDTO(
+                c.id, c.title, c.description, c.status, c.publishedAt, COUNT(t))
+            FROM Course c LEFT JOIN Task t ON t.course = c
+            WHERE c.instructor.id = :instructorId
+            GROUP BY c.id, c.title, c.description, c.status, c.publishedAt
+            ORDER BY c.id""")
+    List<CourseDetailListItemDTO> findDetailsByInstructorId(Long instructorId);
+
+    /**
+     * Everything publishing needs to know about a course in one round trip, without locking it. The
+     * version read here guards the {@link #publish} that follows.
+     */
+    @Query(value = """
+            SELECT c.status AS status, c.version AS version, COUNT(t.id) AS taskCount, COUNT(DISTINCT t.type) AS typeCount
+            FROM Course c LEFT JOIN Task t ON t.course_id = c.id
+            WHERE c.id = :id
+            GROUP BY c.id, c.status, c.version""", nativeQuery = true)
+    Optional<CoursePublishSummary> findPublishSummary(Long id);
+
+    /**
+     * Publishes the course only if it is still building and still at {@code version}; returns 0
+     * when another write got there first.
+     */
+    @Modifying
+    @Query("""
+            UPDATE Course c SET c.status = br.com.alura.AluraFake.course.Status.PUBLISHED, c.publishedAt = :publishedAt,
+                c.version = c.version + 1
+            WHERE c.id = :id AND c.version = :version AND c.status = br.com.alura.AluraFake.course.Status.BUILDING""")
+    int publish(Long id, Long version, LocalDateTime publishedAt);
+
+    /**
+     * Claims the course for a write to its tasks by bumping its version, only if it is still at
+     * {@code version}; returns 0 when another write got there first. The claim row-locks the course
+     * until commit, so it is made just before the first task write. Loaded courses are detached, so
+     * none is left holding the old version.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Course c SET c.version = c.version + 1 WHERE c.id = :id AND c.version = :version")
+    int incrementVersion(Long id, Long version);
 }
@@ -0,0 +1,167 @@
+package br.com.alura.AluraFake.course;
+
+import br.com.alura.AluraFake.task.dto.TaskListItemDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized {@code GET /course/{id}/tasks} responses keyed by course id. Published courses can
+ * no longer change, so they stay much longer than courses still being built and also keep a
+ * gzip copy of the payload. Entries are weighed by their payload bytes, so the budget holds however
+ * large the listings are.
+ */
+@Component
+public class CourseTaskListCache implements MeterBinder {
+
+    /**
+     * @param etag strong ETag of the identity payload; the gzip payload is tagged {@code etag} with a
+     *             {@code -gzip} suffix inside the quotes
+     * @param gzip compressed {@code json}, only kept for published courses
+     */
+    public record Listing(Status status, byte[] json, byte[] gzip, String etag) {
+
+        int weight() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+    }
+
+    private final Cache<Long, Listing> cache;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CourseTaskListCache(ObjectMapper objectMapper,
+                               @Value("${alurafake.cache.course-tasks.max-bytes:64MB}") DataSize maxBytes,
+                               @Value("${alurafake.cache.course-tasks.building-ttl:1m}") Duration buildingTtl,
+                               @Value("${alurafake.cache.course-tasks.published-ttl:24h}") Duration publishedTtl) {
+        this(objectMapper, maxBytes, buildingTtl, publishedTtl, ForkJoinPool.commonPool());
+    }
+
+    /** {@code executor} runs evictions and other cache maintenance. */
+    CourseTaskListCache(ObjectMapper objectMapper, DataSize maxBytes, Duration buildingTtl, Duration publishedTtl,
+                        Executor executor) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .executor(executor)
+                .maximumWeight(maxBytes.toBytes())
+                .weigher((Long courseId, Listing listing) -> listing.weight())
+                .expireAfter(new Expiry<Long, Listing>() {
+                    @Override
+                    public long expireAfterCreate(Long courseId, Listing listing, long currentTime) {
+                        return (Status.PUBLISHED.equals(listing.status()) ? publishedTtl : buildingTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long courseId, Listing listing, long currentTime, long currentDuration) {
+                        return expireAfterCreate(courseId, listing, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long courseId, Listing listing, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached listing or computes it with {@code loader}; a {@code null} from the loader
+     * (unknown course) is returned as is and not cached.
+     */
+    public Listing get(Long courseId, Function<Long, Listing> loader) {
+        return cache.get(courseId, loader);
+    }
+
+    public Listing listing(Status status, List<TaskListItemDTO> tasks) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(tasks);
+            byte[] gzip = Status.PUBLISHED.equals(status) ? gzip(json) : null;
+            return new Listing(status, json, gzip, etagOf(json));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etagOf(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return "\"" + HexFormat.of().formatHex(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Drops the course's listing once the current transaction commits, so a concurrent read can't
+     * cache rows the transaction is still changing. Outside a transaction it is dropped at once.
+     */
+    public void evict(Long courseId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidate(courseId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(courseId);
+            }
+        });
+    }
+
+    /** Lets tests that share an application context start from an empty cache. */
+    void clear() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "courseTaskList");
+        Gauge.builder("cache.weight", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .tag("cache", "courseTaskList")
+                .description("Payload bytes held by the cache")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.alura.AluraFake.course;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes writes to one course inside this JVM, so they queue here instead of on InnoDB row
+ * locks. Courses map onto a fixed set of lock stripes: writes to different courses only wait for
+ * each other when they share a stripe. Writes from other instances are caught by the course version
+ * check instead.
+ */
+@Component
+public class CourseWriteLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long maxWaitNanos;
+    private final Timer waitTimer;
+    private final Counter timeouts;
+
+    public CourseWriteLocks(MeterRegistry registry,
+                            @Value("${alurafake.course-write-locks.stripes:256}") int stripes,
+                            @Value("${alurafake.course-write-locks.max-wait:2s}") Duration maxWait) {
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(stripes - 1, 1)) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.maxWaitNanos = maxWait.toNanos();
+        this.waitTimer = Timer.builder("course.write.lock.wait")
+                .description("Time spent waiting for a course write lock")
+                .register(registry);
+        this.timeouts = Counter.builder("course.write.lock.timeouts")
+                .description("Course writes rejected because the lock was not acquired in time")
+                .register(registry);
+    }
+
+    /**
+     * Runs {@code write} holding the course's lock, or returns empty without running it when the
+     * lock is not acquired within the configured wait.
+     */
+    public <T> Optional<T> tryWithLock(Long courseId, Supplier<T> write) {
+        ReentrantLock lock = stripes[stripeOf(courseId)];
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            timeouts.increment();
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(write.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stripeOf(Long courseId) {
+        // Fibonacci hashing, so consecutive ids land on different stripes
+        return (int) ((courseId * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(stripes.length)));
+    }
+}
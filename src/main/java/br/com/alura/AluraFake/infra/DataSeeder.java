@@ -3,6 +3,7 @@ package br.com.alura.AluraFake.infra;
 import br.com.alura.AluraFake.course.*;
 import br.com.alura.AluraFake.task.Task;
 import br.com.alura.AluraFake.task.TaskOption;
+import br.com.alura.AluraFake.task.TaskRank;
 import br.com.alura.AluraFake.task.TaskRepository;
 import br.com.alura.AluraFake.task.Type;
 import br.com.alura.AluraFake.user.*;
@@ -52,31 +53,31 @@ public class DataSeeder implements CommandLineRunner {
 
             courseRepository.saveAll(Arrays.asList(javaCourse, springCourse, pythonCourse));
 
-            Task javaOpen = new Task(javaCourse, "Descreva a lição de hoje", 1, Type.OPEN_TEXT);
+            Task javaOpen = new Task(javaCourse, "Descreva a lição de hoje", TaskRank.forPosition(1), Type.OPEN_TEXT);
 
-            Task javaSingle = new Task(javaCourse, "Qual linguagem usamos para este curso?", 2, Type.SINGLE_CHOICE);
+            Task javaSingle = new Task(javaCourse, "Qual linguagem usamos para este curso?", TaskRank.forPosition(2), Type.SINGLE_CHOICE);
             javaSingle.addOption(new TaskOption("Java", true));
             javaSingle.addOption(new TaskOption("Python", false));
 
-            Task javaMultiple = new Task(javaCourse, "Quais tecnologias fazem parte do ecossistema Java?", 3, Type.MULTIPLE_CHOICE);
+            Task javaMultiple = new Task(javaCourse, "Quais tecnologias fazem parte do ecossistema Java?", TaskRank.forPosition(3), Type.MULTIPLE_CHOICE);
             javaMultiple.addOption(new TaskOption("Spring", true));
             javaMultiple.addOption(new TaskOption("Hibernate", true));
             javaMultiple.addOption(new TaskOption("Django", false));
 
-            Task springOpen = new Task(springCourse, "Explique o propósito do Spring Boot", 1, Type.OPEN_TEXT);
+            Task springOpen = new Task(springCourse, "Explique o propósito do Spring Boot", TaskRank.forPosition(1), Type.OPEN_TEXT);
 
-            Task springSingle = new Task(springCourse, "Qual anotação inicializa uma aplicação Spring Boot?", 2, Type.SINGLE_CHOICE);
+            Task springSingle = new Task(springCourse, "Qual anotação inicializa uma aplicação Spring Boot?", TaskRank.forPosition(2), Type.SINGLE_CHOICE);
             springSingle.addOption(new TaskOption("@SpringBootApplication", true));
             springSingle.addOption(new TaskOption("@Configuration", false));
 
-            Task springMultiple = new Task(springCourse, "Quais módulos são comuns em uma aplicação Spring Boot?", 3, Type.MULTIPLE_CHOICE);
+            Task springMultiple = new Task(springCourse, "Quais módulos são comuns em uma aplicação Spring Boot?", TaskRank.forPosition(3), Type.MULTIPLE_CHOICE);
             springMultiple.addOption(new TaskOption("Spring MVC", true));
             springMultiple.addOption(new TaskOption("Spring Data JPA", true));
             springMultiple.addOption(new TaskOption("Flask", false));
 
-            Task pythonOpen = new Task(pythonCourse, "O que é uma lista em Python?", 1, Type.OPEN_TEXT);
+            Task pythonOpen = new Task(pythonCourse, "O que é uma lista em Python?", TaskRank.forPosition(1), Type.OPEN_TEXT);
 
-            Task pythonSingle = new Task(pythonCourse, "Qual é a extensão padrão de arquivos Python?", 2, Type.SINGLE_CHOICE);
+            Task pythonSingle = new Task(pythonCourse, "Qual é a extensão padrão de arquivos Python?", TaskRank.forPosition(2), Type.SINGLE_CHOICE);
             pythonSingle.addOption(new TaskOption(".py", true));
             pythonSingle.addOption(new TaskOption(".java", false));
 
@@ -0,0 +1,77 @@
+package br.com.alura.AluraFake.infra;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements each request runs, by route, in {@code http.server.requests.sql}. A
+ * request over the threshold is logged and counted in {@code http.server.requests.sql.exceeded},
+ * which is usually an N+1 query.
+ */
+@Component
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementCountFilter.class);
+
+    private final MeterRegistry registry;
+    private final long threshold;
+
+    @Autowired
+    public SqlStatementCountFilter(ObjectProvider<MeterRegistry> registry,
+                                   @Value("${alurafake.sql.statements-per-request.warn-threshold:20}") long threshold) {
+        // Web test slices have no registry; the global one just drops the measurements
+        this(registry.getIfAvailable(() -> Metrics.globalRegistry), threshold);
+    }
+
+    SqlStatementCountFilter(MeterRegistry registry, long threshold) {
+        this.registry = registry;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long statements = SqlStatementCounter.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+            DistributionSummary.builder("http.server.requests.sql")
+                    .description("SQL statements run per request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(registry)
+                    .record(statements);
+
+            if (statements > threshold) {
+                Counter.builder("http.server.requests.sql.exceeded")
+                        .description("Requests that ran more SQL statements than the threshold")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri)
+                        .register(registry)
+                        .increment();
+                log.warn("{} {} ran {} SQL statements, over the threshold of {}",
+                        request.getMethod(), request.getRequestURI(), statements, threshold);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.alura.AluraFake.infra;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a count is open. It is
+ * registered as Hibernate's statement inspector by class name, so Hibernate creates the instance
+ * and the open counts live in a static thread local. Plain JDBC, such as the NDJSON streams, is
+ * not seen.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    /** Opens a count on the current thread, replacing any count already open. */
+    public static void start() {
+        COUNT.set(new long[1]);
+    }
+
+    /** Closes the current thread's count and returns it; 0 when no count was open. */
+    public static long stop() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+}
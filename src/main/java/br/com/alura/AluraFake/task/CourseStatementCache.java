@@ -0,0 +1,94 @@
+package br.com.alura.AluraFake.task;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * The {@link TaskCreationState} of courses being edited, so consecutive inserts into a course skip
+ * the query that loads it. An entry is never trusted on its own: the course version claim fails a
+ * write made from a stale entry, and the statement index still rejects duplicates it misses.
+ * <p>
+ * An entry holds a hash per task, so the cache is bounded by the number of hashes rather than of
+ * courses. Entries are loaded in the background after an insert commits, never by a request.
+ */
+@Component
+public class CourseStatementCache implements MeterBinder {
+
+    private final LoadingCache<Long, TaskCreationState> cache;
+
+    @Autowired
+    public CourseStatementCache(TaskRepository taskRepository,
+                                @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+                                @Value("${alurafake.cache.course-statements.max-hashes:250000}") long maxHashes,
+                                @Value("${alurafake.cache.course-statements.ttl:10m}") Duration ttl) {
+        this(courseId -> TaskCreationState.of(taskRepository.findCreationRows(courseId)), executor, maxHashes, ttl);
+    }
+
+    CourseStatementCache(Function<Long, TaskCreationState> loader, Executor executor, long maxHashes, Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxHashes)
+                .weigher((Long courseId, TaskCreationState state) -> 1 + state.taskCount())
+                .expireAfterAccess(ttl)
+                .executor(executor)
+                .recordStats()
+                .build(loader::apply);
+    }
+
+    public TaskCreationState getIfPresent(Long courseId) {
+        return cache.getIfPresent(courseId);
+    }
+
+    public void put(Long courseId, TaskCreationState state) {
+        cache.put(courseId, state);
+    }
+
+    /**
+     * Once the current transaction commits, advances the entry read as {@code read} past the new
+     * task. When the task was checked without an entry ({@code read} is {@code null}), or the entry
+     * was replaced in the meantime, the course is reloaded in the background instead. Outside a
+     * transaction it is done at once.
+     */
+    public void recordInsert(Long courseId, TaskCreationState read, byte[] statementHash) {
+        Runnable advance = () -> {
+            if (read == null || cache.asMap().computeIfPresent(courseId,
+                    (id, current) -> current == read ? read.withTask(statementHash) : null) == null) {
+                cache.refresh(courseId);
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            advance.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                advance.run();
+            }
+        });
+    }
+
+    public void evict(Long courseId) {
+        cache.invalidate(courseId);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "courseStatements");
+    }
+}
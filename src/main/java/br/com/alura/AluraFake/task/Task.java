@@ -3,30 +3,40 @@ package br.com.alura.AluraFake.task;
 import br.com.alura.AluraFake.course.Course;
 import jakarta.persistence.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 @Entity
 public class Task {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "task_id")
+    @TableGenerator(name = "task_id", table = "IdGenerator", pkColumnName = "name", valueColumnName = "next_val",
+            pkColumnValue = "Task", allocationSize = 50)
     private Long id;
-    private Integer orderIndex;
+    private Long rankKey;
     private String statement;
+    private byte[] statementHash;
     @Enumerated(EnumType.STRING)
     private Type type;
     @ManyToOne(optional = false)
     private Course course;
     @OneToMany(mappedBy = "task", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<TaskOption> taskOptions = new ArrayList<>();
+    @Version
+    private Long version;
 
     @Deprecated
     public Task() {}
 
-    public Task(Course course, String statement, Integer orderIndex, Type type) {
+    public Task(Course course, String statement, long rankKey, Type type) {
         this.course = course;
         this.statement = statement;
-        this.orderIndex = orderIndex;
+        this.statementHash = hashStatement(statement);
+        this.rankKey = rankKey;
         this.type = type;
     }
 
@@ -34,12 +44,12 @@ public class Task {
         return id;
     }
 
-    public Integer getOrderIndex() {
-        return orderIndex;
+    public Long getRankKey() {
+        return rankKey;
     }
 
-    public void setOrderIndex(Integer orderIndex) {
-        this.orderIndex = orderIndex;
+    public void setRankKey(Long rankKey) {
+        this.rankKey = rankKey;
     }
 
     public String getStatement() {
@@ -54,6 +64,10 @@ public class Task {
         return course;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public List<TaskOption> getOptions() {
         return taskOptions;
     }
@@ -63,4 +77,23 @@ public class Task {
         this.taskOptions.add(taskOption);
     }
 
+    /** The form statements are compared in: trimmed and lower-cased. */
+    public static String normalizeStatement(String statement) {
+        return statement.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * SHA-256 of the normalized statement, kept in {@code statementHash} and unique per course. V9
+     * backfilled existing tasks with its own copy of this, so a change here needs a migration that
+     * rehashes them.
+     */
+    public static byte[] hashStatement(String statement) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest(normalizeStatement(statement).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
 }
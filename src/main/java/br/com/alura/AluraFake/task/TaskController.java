@@ -3,9 +3,13 @@ package br.com.alura.AluraFake.task;
 import br.com.alura.AluraFake.task.dto.NewMultipleChoiceDTO;
 import br.com.alura.AluraFake.task.dto.NewOpenTextDTO;
 import br.com.alura.AluraFake.task.dto.NewSingleChoiceDTO;
+import br.com.alura.AluraFake.task.dto.NewTaskBatchDTO;
+import br.com.alura.AluraFake.task.dto.TaskOrderDTO;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
@@ -34,4 +38,14 @@ public class TaskController {
     public ResponseEntity newMultipleChoice(@Valid @RequestBody NewMultipleChoiceDTO dto) {
         return taskService.createNewTask(dto, Type.MULTIPLE_CHOICE);
     }
+
+    @PostMapping("/course/{id}/tasks/batch")
+    public ResponseEntity newTaskBatch(@PathVariable("id") Long courseId, @Valid @RequestBody NewTaskBatchDTO dto) {
+        return taskService.createTasksBatch(courseId, dto);
+    }
+
+    @PatchMapping("/course/{id}/tasks/order")
+    public ResponseEntity reorderTasks(@PathVariable("id") Long courseId, @Valid @RequestBody TaskOrderDTO dto) {
+        return taskService.reorderTasks(courseId, dto);
+    }
 }
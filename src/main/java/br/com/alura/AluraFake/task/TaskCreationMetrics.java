@@ -0,0 +1,59 @@
+package br.com.alura.AluraFake.task;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of each stage of {@code createNewTask} by task type, in {@code task.creation.stage} with
+ * p50/p99/p999. Every timer is registered up front and a stage is marked with two
+ * {@link System#nanoTime()} reads, so timing allocates nothing per request.
+ */
+@Component
+public class TaskCreationMetrics {
+
+    public enum Stage {
+        /** Field, statement, option and order checks that need no database. */
+        VALIDATE,
+        /** Course status, task count and duplicate statement, from the cache or the database, plus the checks on it. */
+        LOAD_STATE,
+        /** The course version bump that claims the course for the write. */
+        CLAIM_COURSE,
+        /** Reading the neighbouring rank keys, and respacing the course when they are too close. */
+        RANK_KEY,
+        /** Inserting the task and its options. */
+        SAVE
+    }
+
+    private final Map<Type, Map<Stage, Timer>> timers = new EnumMap<>(Type.class);
+
+    public TaskCreationMetrics(MeterRegistry registry) {
+        for (Type type : Type.values()) {
+            Map<Stage, Timer> byStage = new EnumMap<>(Stage.class);
+            for (Stage stage : Stage.values()) {
+                byStage.put(stage, Timer.builder("task.creation.stage")
+                        .description("Time spent in each stage of creating a task")
+                        .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                        .tag("type", type.name())
+                        .publishPercentiles(0.5, 0.99, 0.999)
+                        .register(registry));
+            }
+            timers.put(type, byStage);
+        }
+    }
+
+    /**
+     * Records the time since {@code start} against the stage and returns the current time, so the
+     * next stage can be marked from it.
+     */
+    public long mark(Stage stage, Type type, long start) {
+        long now = System.nanoTime();
+        timers.get(type).get(stage).record(now - start, TimeUnit.NANOSECONDS);
+        return now;
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.course.Status;
+
+/** What {@code createNewTask} checks one new task against, whether read from the database or the cache. */
+public interface TaskCreationProbe {
+    Status getStatus();
+
+    Long getCourseVersion();
+
+    Long getTaskCount();
+
+    Long getStatementCount();
+
+    default boolean statementExists() {
+        return getStatementCount() > 0;
+    }
+}
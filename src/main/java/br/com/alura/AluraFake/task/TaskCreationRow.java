@@ -0,0 +1,12 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.course.Status;
+
+/** One row per task of the course, or a single row with no hash when it has none. */
+public interface TaskCreationRow {
+    Status getStatus();
+
+    Long getCourseVersion();
+
+    byte[] getStatementHash();
+}
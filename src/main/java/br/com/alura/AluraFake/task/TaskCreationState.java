@@ -0,0 +1,72 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.course.Status;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Everything {@code createNewTask} checks a new task against, as of {@code courseVersion}. Statement
+ * hashes are unique per course, so their count is the task count.
+ */
+public record TaskCreationState(Status status, long courseVersion, Set<ByteBuffer> statementHashes) {
+
+    /** {@code null} when there are no rows, i.e. the course does not exist. */
+    public static TaskCreationState of(List<TaskCreationRow> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Set<ByteBuffer> hashes = HashSet.newHashSet(rows.size());
+        for (TaskCreationRow row : rows) {
+            if (row.getStatementHash() != null) {
+                hashes.add(ByteBuffer.wrap(row.getStatementHash()));
+            }
+        }
+        TaskCreationRow first = rows.getFirst();
+        return new TaskCreationState(first.getStatus(), first.getCourseVersion(), Set.copyOf(hashes));
+    }
+
+    public int taskCount() {
+        return statementHashes.size();
+    }
+
+    public boolean statementExists(byte[] statementHash) {
+        return statementHashes.contains(ByteBuffer.wrap(statementHash));
+    }
+
+    /** This state checked against one statement, as {@link TaskRepository#findCreationProbe} would return it. */
+    public TaskCreationProbe probe(byte[] statementHash) {
+        long statementCount = statementExists(statementHash) ? 1 : 0;
+        return new TaskCreationProbe() {
+            @Override
+            public Status getStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getCourseVersion() {
+                return courseVersion;
+            }
+
+            @Override
+            public Long getTaskCount() {
+                return (long) taskCount();
+            }
+
+            @Override
+            public Long getStatementCount() {
+                return statementCount;
+            }
+        };
+    }
+
+    /** The state after this task is inserted and the course version claimed. */
+    public TaskCreationState withTask(byte[] statementHash) {
+        Set<ByteBuffer> hashes = HashSet.newHashSet(statementHashes.size() + 1);
+        hashes.addAll(statementHashes);
+        hashes.add(ByteBuffer.wrap(statementHash));
+        return new TaskCreationState(status, courseVersion + 1, Set.copyOf(hashes));
+    }
+}
@@ -6,7 +6,9 @@ import jakarta.persistence.*;
 public class TaskOption {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "task_option_id")
+    @TableGenerator(name = "task_option_id", table = "IdGenerator", pkColumnName = "name", valueColumnName = "next_val",
+            pkColumnValue = "TaskOption", allocationSize = 50)
     private Long id;
 
     @Column(length = 80, nullable = false)
@@ -0,0 +1,99 @@
+package br.com.alura.AluraFake.task;
+
+/**
+ * Tasks are ordered by a sparse {@code rankKey} rather than a dense position, so a task can be
+ * placed between two others by writing its own key only. The dense 1..n order is derived from
+ * the position of each task when listing a course.
+ */
+public final class TaskRank {
+
+    public static final long GAP = 1L << 20;
+
+    private TaskRank() {}
+
+    public static long forPosition(int position) {
+        return position * GAP;
+    }
+
+    /**
+     * Spreads {@code count} keys evenly between {@code before} and {@code after}, both exclusive.
+     * A {@code null} {@code after} means the keys go at the end of the course. Returns {@code null}
+     * when the gap is too narrow, in which case the course has to be rebalanced first.
+     */
+    public static long[] between(long before, Long after, int count) {
+        long step = after == null ? GAP : (after - before) / (count + 1);
+        if (step < 1) {
+            return null;
+        }
+
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = before + step * (i + 1);
+        }
+        return keys;
+    }
+
+    /**
+     * Fills every {@code null} in {@code keys} with a key between its non-null neighbours, leaving
+     * the others as they are. Returns {@code false} if some run of {@code null}s does not fit.
+     */
+    public static boolean fillGaps(Long[] keys) {
+        int position = 0;
+        while (position < keys.length) {
+            if (keys[position] != null) {
+                position++;
+                continue;
+            }
+
+            int runStart = position;
+            while (position < keys.length && keys[position] == null) {
+                position++;
+            }
+            long before = runStart == 0 ? 0 : keys[runStart - 1];
+            Long after = position < keys.length ? keys[position] : null;
+
+            long[] runKeys = between(before, after, position - runStart);
+            if (runKeys == null) {
+                return false;
+            }
+            for (int i = 0; i < runKeys.length; i++) {
+                keys[runStart + i] = runKeys[i];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks a longest strictly increasing subsequence of {@code keys}. When reordering, those tasks
+     * are already in the right relative order and can keep their keys while the others move.
+     */
+    public static boolean[] longestIncreasingSubsequence(long[] keys) {
+        int[] tails = new int[keys.length];
+        int[] previous = new int[keys.length];
+        int length = 0;
+
+        for (int i = 0; i < keys.length; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[tails[middle]] < keys[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] kept = new boolean[keys.length];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            kept[i] = true;
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.alura.AluraFake.task;
+
+public interface TaskRankView {
+    Long getId();
+
+    Long getRankKey();
+}
@@ -1,21 +1,77 @@
 package br.com.alura.AluraFake.task;
 
-import br.com.alura.AluraFake.course.Course;
+import br.com.alura.AluraFake.task.dto.TaskListRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
 
-    boolean existsByCourseAndStatement(Course course, String statement);
+    /**
+     * Everything {@code createNewTask} checks one task against, in one aggregate row. Nothing is
+     * locked: the course version read here is checked when the task is written, so a concurrent
+     * change to the course fails the write instead. The statement is matched by
+     * {@link Task#hashStatement} through uq_task_course_statement_hash. Empty when the course does
+     * not exist.
+     */
+    @Query(value = """
+            SELECT c.status AS status,
+                   c.version AS courseVersion,
+                   COUNT(t.id) AS taskCount,
+                   (SELECT COUNT(*) FROM Task s WHERE s.course_id = c.id AND s.statementHash = :statementHash) AS statementCount
+            FROM Course c LEFT JOIN Task t ON t.course_id = c.id
+            WHERE c.id = :courseId
+            GROUP BY c.id, c.status, c.version""", nativeQuery = true)
+    Optional<TaskCreationProbe> findCreationProbe(Long courseId, byte[] statementHash);
 
-    int countByCourseId(Long courseId);
+    /**
+     * The course status and version with the statement hash of each of its tasks, which
+     * {@link CourseStatementCache} keeps to check further tasks without a query. Empty when the
+     * course does not exist.
+     */
+    @Query(value = """
+            SELECT c.status AS status,
+                   c.version AS courseVersion,
+                   t.statementHash AS statementHash
+            FROM Course c LEFT JOIN Task t ON t.course_id = c.id
+            WHERE c.id = :courseId""", nativeQuery = true)
+    List<TaskCreationRow> findCreationRows(Long courseId);
 
-    List<Task> findByCourseIdOrderByOrderIndexAsc(Long courseId);
+    List<Task> findByCourseIdOrderByRankKeyAsc(Long courseId);
 
+    List<TaskRankView> findRankViewsByCourseIdOrderByRankKeyAsc(Long courseId);
+
+    @Query("""
+            SELECT new br.com.alura.AluraFake.task.dto.TaskListRow(t.id, t.statement, t.type, o.id, o.optionText, o.isCorrect)
+            FROM Task t LEFT JOIN t.taskOptions o
+            WHERE t.course.id = :courseId
+            ORDER BY t.rankKey, o.id""")
+    List<TaskListRow> findListRowsByCourseId(Long courseId);
+
+    @Query(value = "SELECT t.rankKey FROM Task t WHERE t.course_id = :courseId ORDER BY t.rankKey LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Long> findRankKeys(Long courseId, int offset, int limit);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE Task t SET t.rankKey = -t.rankKey WHERE t.course_id = :courseId", nativeQuery = true)
+    int negateRankKeys(Long courseId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE Task t SET t.rankKey = -t.rankKey WHERE t.course_id = :courseId AND t.id IN :ids", nativeQuery = true)
+    int negateRankKeys(Long courseId, Collection<Long> ids);
+
+    /**
+     * Must run right after {@link #negateRankKeys(Long)}: descending negated keys are the original
+     * ascending order, and every new key is positive, so no step collides with uq_task_course_rank.
+     */
     @Modifying(flushAutomatically = true, clearAutomatically = true)
-    @Query(value = "UPDATE Task t SET t.orderIndex = t.orderIndex + 1 WHERE t.course_id = :courseId AND t.orderIndex >= :from ORDER BY orderIndex DESC", nativeQuery = true)
-    int shiftOrders(Long courseId, Integer from);
+    @Query(value = """
+            UPDATE Task t
+            JOIN (SELECT id, ROW_NUMBER() OVER (ORDER BY rankKey DESC) AS position FROM Task WHERE course_id = :courseId) r
+              ON r.id = t.id
+            SET t.rankKey = r.position * :gap""", nativeQuery = true)
+    int respaceRankKeys(Long courseId, long gap);
 }
@@ -0,0 +1,12 @@
+package br.com.alura.AluraFake.task;
+
+import java.util.Map;
+
+public interface TaskRepositoryCustom {
+
+    /**
+     * Writes every key in one {@code CASE} statement. Rows whose new key may still be held by
+     * another row of the course must be negated first to keep uq_task_course_rank satisfied.
+     */
+    int updateRankKeys(Long courseId, Map<Long, Long> rankKeysById);
+}
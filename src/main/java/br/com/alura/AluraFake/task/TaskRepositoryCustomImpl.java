@@ -0,0 +1,43 @@
+package br.com.alura.AluraFake.task;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+
+class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    TaskRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int updateRankKeys(Long courseId, Map<Long, Long> rankKeysById) {
+        if (rankKeysById.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE Task SET rankKey = CASE id");
+        int parameter = 1;
+        for (int i = 0; i < rankKeysById.size(); i++) {
+            sql.append(" WHEN ?").append(parameter++).append(" THEN ?").append(parameter++);
+        }
+        sql.append(" END WHERE course_id = ?").append(parameter++).append(" AND id IN (?").append(parameter).append(")");
+
+        entityManager.flush();
+        Query query = entityManager.createNativeQuery(sql.toString());
+        parameter = 1;
+        for (Map.Entry<Long, Long> entry : rankKeysById.entrySet()) {
+            query.setParameter(parameter++, entry.getKey());
+            query.setParameter(parameter++, entry.getValue());
+        }
+        query.setParameter(parameter++, courseId);
+        query.setParameter(parameter, rankKeysById.keySet());
+
+        return query.executeUpdate();
+    }
+}
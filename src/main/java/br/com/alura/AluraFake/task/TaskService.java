@@ -2,165 +2,609 @@ package br.com.alura.AluraFake.task;
 
 import br.com.alura.AluraFake.course.Course;
 import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.course.CourseTaskListCache;
+import br.com.alura.AluraFake.course.CourseWriteLocks;
 import br.com.alura.AluraFake.course.Status;
+import br.com.alura.AluraFake.task.TaskCreationMetrics.Stage;
 import br.com.alura.AluraFake.task.dto.*;
 import br.com.alura.AluraFake.util.ErrorItemDTO;
+import br.com.alura.AluraFake.util.OptimisticRetry;
+import br.com.alura.AluraFake.util.ValidationErrors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 @Service
 public class TaskService {
 
     private final TaskRepository taskRepository;
     private final CourseRepository courseRepository;
+    private final CourseTaskListCache courseTaskListCache;
+    private final CourseWriteLocks courseWriteLocks;
+    private final OptimisticRetry optimisticRetry;
+    private final TaskCreationMetrics taskCreationMetrics;
+    private final CourseStatementCache courseStatementCache;
+
+    // ErrorItemDTO is immutable, so the fixed errors are built once and shared
+    private static final ErrorItemDTO OPTION_NULL_ERR =
+            new ErrorItemDTO("options", "Option text must not be null");
+    private static final ErrorItemDTO OPTION_LENGTH_ERR =
+            new ErrorItemDTO("options", "Each option must have between 4 and 80 characters");
+    private static final ErrorItemDTO OPTION_DUPLICATE_ERR =
+            new ErrorItemDTO("options", "Options must be unique");
+    private static final ErrorItemDTO OPTION_EQUALS_STATEMENT_ERR =
+            new ErrorItemDTO("options", "Options must not be equal to the statement");
+    private static final ErrorItemDTO SINGLE_CHOICE_OPTION_COUNT_ERR =
+            new ErrorItemDTO("options", "Single choice must have between 2 and 5 options");
+    private static final ErrorItemDTO MULTIPLE_CHOICE_OPTION_COUNT_ERR =
+            new ErrorItemDTO("options", "Multiple choice must have between 3 and 5 options");
+    private static final ErrorItemDTO SINGLE_CHOICE_CORRECT_COUNT_ERR =
+            new ErrorItemDTO("options", "Single choice must have exactly one correct option");
+    private static final ErrorItemDTO MULTIPLE_CHOICE_CORRECT_COUNT_ERR =
+            new ErrorItemDTO("options", "Multiple choice must have two or more correct options and at least one incorrect option");
+    private static final ErrorItemDTO STATEMENT_EXISTS_ERR =
+            new ErrorItemDTO("statement", "Statement already exists in this course");
 
     @Autowired
-    public TaskService(TaskRepository taskRepository, CourseRepository courseRepository) {
+    public TaskService(TaskRepository taskRepository, CourseRepository courseRepository, CourseTaskListCache courseTaskListCache,
+                       CourseWriteLocks courseWriteLocks, OptimisticRetry optimisticRetry,
+                       TaskCreationMetrics taskCreationMetrics, CourseStatementCache courseStatementCache) {
         this.taskRepository = taskRepository;
         this.courseRepository = courseRepository;
+        this.courseTaskListCache = courseTaskListCache;
+        this.courseWriteLocks = courseWriteLocks;
+        this.optimisticRetry = optimisticRetry;
+        this.taskCreationMetrics = taskCreationMetrics;
+        this.courseStatementCache = courseStatementCache;
     }
 
-    @Transactional
+    /**
+     * Runs every check that needs no database first and reports all of their errors at once; only a
+     * request that passes them costs the one query that loads what the remaining checks need, and
+     * not even that while the course's state is in {@link CourseStatementCache}. The course itself is
+     * never loaded, the new task only references it. Each stage is timed in {@link TaskCreationMetrics}.
+     */
     public <T extends NewTaskDTO> ResponseEntity createNewTask(T dto, Type type) {
-        ResponseEntity<?> fieldsNullErr = validateFieldsNotNullOrEmpty(dto, type);
-        if (fieldsNullErr != null) {
-            return fieldsNullErr;
+        long start = System.nanoTime();
+        ValidationErrors errors = validateRequest(dto, type);
+        taskCreationMetrics.mark(Stage.VALIDATE, type, start);
+        if (!errors.isEmpty()) {
+            return errors.toResponse();
         }
 
-        Optional<Course> courseOptional = courseRepository.findById(dto.getCourseId());
+        try {
+            return writeToCourse(dto.getCourseId(), () -> insertTask(dto, type, errors));
+        } catch (DataIntegrityViolationException e) {
+            if (!isStatementConflict(e)) {
+                throw e;
+            }
+            // The unique index caught a duplicate the cached statements did not have
+            courseStatementCache.evict(dto.getCourseId());
+            return ResponseEntity.badRequest().body(STATEMENT_EXISTS_ERR);
+        }
+    }
+
+    private <T extends NewTaskDTO> ResponseEntity insertTask(T dto, Type type, ValidationErrors errors) {
+        long start = System.nanoTime();
+        String statementTrimmed = dto.getStatement().trim();
+        byte[] statementHash = Task.hashStatement(statementTrimmed);
+
+        // A cached state can only lack tasks written elsewhere, so it may accept a task but not reject one
+        TaskCreationState cached = courseStatementCache.getIfPresent(dto.getCourseId());
+        TaskCreationProbe state = cached == null ? null : cached.probe(statementHash);
+        if (state == null || rejects(state, dto.getOrder())) {
+            // One aggregate row answers this request; the cache reloads the course's statements once it commits
+            cached = null;
+            state = taskRepository.findCreationProbe(dto.getCourseId(), statementHash).orElse(null);
+            if (state == null) {
+                return ResponseEntity.notFound().build();
+            }
+        }
+
+        ErrorItemDTO courseBuildingErr = validateCourseIsBuilding(state.getStatus());
+        if (courseBuildingErr != null) {
+            return ResponseEntity.badRequest().body(courseBuildingErr);
+        }
+
+        errors.add(validateStatementUnique(state))
+                .add(validateOrderSequence(Math.toIntExact(state.getTaskCount()), dto.getOrder()));
+        start = taskCreationMetrics.mark(Stage.LOAD_STATE, type, start);
+        if (!errors.isEmpty()) {
+            return errors.toResponse();
+        }
+
+        claimCourse(dto.getCourseId(), state.getCourseVersion());
+        start = taskCreationMetrics.mark(Stage.CLAIM_COURSE, type, start);
+
+        long rankKey = rankKeyForOrder(dto.getCourseId(), dto.getOrder());
+        start = taskCreationMetrics.mark(Stage.RANK_KEY, type, start);
+
+        // Flushed here rather than at commit, so the inserts are timed with the save
+        Course course = courseRepository.getReferenceById(dto.getCourseId());
+        taskRepository.save(buildTask(course, statementTrimmed, rankKey, type, dto.getOptions()));
+        taskRepository.flush();
+        taskCreationMetrics.mark(Stage.SAVE, type, start);
+        courseTaskListCache.evict(dto.getCourseId());
+        courseStatementCache.recordInsert(dto.getCourseId(), cached, statementHash);
+
+        return ResponseEntity.status(201).build();
+    }
+
+    private boolean rejects(TaskCreationProbe state, Integer order) {
+        return validateCourseIsBuilding(state.getStatus()) != null
+                || validateStatementUnique(state) != null
+                || validateOrderSequence(Math.toIntExact(state.getTaskCount()), order) != null;
+    }
+
+    private static boolean isStatementConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains("uq_task_course_statement_hash");
+    }
+
+    /**
+     * Validates every item against the course state loaded once up front and, only if the whole
+     * batch is valid, writes it in a single transaction. Items are applied in request order, so
+     * each {@code order} refers to the course as left by the preceding items.
+     */
+    public ResponseEntity createTasksBatch(Long courseId, NewTaskBatchDTO batch) {
+        return writeToCourse(courseId, () -> insertTasks(courseId, batch));
+    }
+
+    private ResponseEntity insertTasks(Long courseId, NewTaskBatchDTO batch) {
+        Optional<Course> courseOptional = courseRepository.findById(courseId);
         if (courseOptional.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         Course course = courseOptional.get();
 
-        ResponseEntity<?> courseBuildingErr = validateCourseIsBuilding(course);
+        ErrorItemDTO courseBuildingErr = validateCourseIsBuilding(course.getStatus());
         if (courseBuildingErr != null) {
-            return courseBuildingErr;
+            return ResponseEntity.badRequest().body(courseBuildingErr);
         }
 
-        String statementTrimmed = dto.getStatement().trim();
+        List<Task> layout = new ArrayList<>(taskRepository.findByCourseIdOrderByRankKeyAsc(courseId));
+        Set<String> statements = new HashSet<>();
+        for (Task task : layout) {
+            statements.add(Task.normalizeStatement(task.getStatement()));
+        }
+
+        List<ErrorItemDTO> errors = new ArrayList<>();
+        List<Task> newTasks = new ArrayList<>();
+        List<NewTaskBatchItemDTO> items = batch.getTasks();
+
+        for (int i = 0; i < items.size(); i++) {
+            NewTaskBatchItemDTO item = items.get(i);
+            String prefix = "tasks[" + i + "].";
+
+            List<ErrorItemDTO> fieldsNullErr = validateFieldsNotNullOrEmpty(item.getType(), item.getStatement(), item.getOrder(), item.getOptions());
+            if (!fieldsNullErr.isEmpty()) {
+                fieldsNullErr.forEach(err -> errors.add(prefixed(prefix, err)));
+                continue;
+            }
+
+            List<ErrorItemDTO> itemErrors = new ArrayList<>();
+            String statementTrimmed = item.getStatement().trim();
 
-        ResponseEntity<?> statementLengthErr = validateStatementLength(statementTrimmed);
-        if (statementLengthErr != null) {
-            return statementLengthErr;
+            ErrorItemDTO statementLengthErr = validateStatementLength(statementTrimmed);
+            if (statementLengthErr != null) {
+                itemErrors.add(statementLengthErr);
+            } else if (!statements.add(Task.normalizeStatement(statementTrimmed))) {
+                itemErrors.add(STATEMENT_EXISTS_ERR);
+            }
+
+            // A slot is reserved even when other checks fail, so later items are not rejected for a gap
+            ErrorItemDTO orderErr = validateOrderSequence(layout.size(), item.getOrder());
+            if (orderErr != null) {
+                itemErrors.add(orderErr);
+            }
+
+            Type type = item.getType();
+            if (Type.SINGLE_CHOICE.equals(type) || Type.MULTIPLE_CHOICE.equals(type)) {
+                ErrorItemDTO optionsErr = validateOptions(item.getOptions(), statementTrimmed, type);
+                if (optionsErr != null) {
+                    itemErrors.add(optionsErr);
+                }
+            }
+
+            Task task = itemErrors.isEmpty()
+                    ? buildTask(course, statementTrimmed, 0, type, item.getOptions())
+                    : null;
+            if (orderErr == null) {
+                layout.add(item.getOrder() - 1, task);
+            }
+            if (task != null) {
+                newTasks.add(task);
+            }
+            itemErrors.forEach(err -> errors.add(prefixed(prefix, err)));
         }
 
-        ResponseEntity<?> statementUniqueErr = validateStatementUnique(course, statementTrimmed);
-        if (statementUniqueErr != null) {
-            return statementUniqueErr;
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(errors);
         }
 
-        int existingCount = taskRepository.countByCourseId(dto.getCourseId());
-        ResponseEntity<?> orderErr = validateOrderSequence(existingCount, dto.getOrder());
-        if (orderErr != null) {
-            return orderErr;
+        claimCourse(courseId, course.getVersion());
+        assignRankKeys(courseId, layout);
+        taskRepository.saveAll(newTasks);
+        courseTaskListCache.evict(courseId);
+        courseStatementCache.evict(courseId);
+
+        return ResponseEntity.status(201).build();
+    }
+
+    /**
+     * Reorders a course from either a full permutation of its task ids or a list of moves applied
+     * in sequence. Tasks that keep their relative order keep their rank key, so only moved rows
+     * are written: one UPDATE parks them on negative keys and one CASE UPDATE places them.
+     */
+    public ResponseEntity reorderTasks(Long courseId, TaskOrderDTO dto) {
+        return writeToCourse(courseId, () -> applyTaskOrder(courseId, dto));
+    }
+
+    private ResponseEntity applyTaskOrder(Long courseId, TaskOrderDTO dto) {
+        Optional<Course> courseOptional = courseRepository.findById(courseId);
+        if (courseOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Course course = courseOptional.get();
+
+        ErrorItemDTO courseBuildingErr = validateCourseIsBuilding(course.getStatus());
+        if (courseBuildingErr != null) {
+            return ResponseEntity.badRequest().body(courseBuildingErr);
         }
 
-        if (Type.SINGLE_CHOICE.equals(type) || Type.MULTIPLE_CHOICE.equals(type)) {
-            ResponseEntity<?> optionsErr = validateOptions(dto.getOptions(), statementTrimmed, type);
-            if (optionsErr != null) {
-                return optionsErr;
+        if ((dto.getTaskIds() == null) == (dto.getMoves() == null)) {
+            return ResponseEntity.badRequest().body(new ErrorItemDTO("taskIds", "Exactly one of taskIds or moves is required"));
+        }
+
+        List<TaskRankView> current = taskRepository.findRankViewsByCourseIdOrderByRankKeyAsc(courseId);
+        List<Long> orderedIds = new ArrayList<>(current.size());
+        for (TaskRankView task : current) {
+            orderedIds.add(task.getId());
+        }
+
+        if (dto.getTaskIds() != null) {
+            ErrorItemDTO permutationErr = validatePermutation(orderedIds, dto.getTaskIds());
+            if (permutationErr != null) {
+                return ResponseEntity.badRequest().body(permutationErr);
+            }
+            orderedIds = dto.getTaskIds();
+        } else {
+            List<ErrorItemDTO> errors = new ArrayList<>();
+            List<TaskMoveDTO> moves = dto.getMoves();
+
+            for (int i = 0; i < moves.size(); i++) {
+                TaskMoveDTO move = moves.get(i);
+                String prefix = "moves[" + i + "].";
+
+                int from = orderedIds.indexOf(move.getTaskId());
+                if (from < 0) {
+                    errors.add(new ErrorItemDTO(prefix + "taskId", "Task does not belong to this course"));
+                    continue;
+                }
+                ErrorItemDTO orderErr = validateOrderSequence(orderedIds.size() - 1, move.getOrder());
+                if (orderErr != null) {
+                    errors.add(prefixed(prefix, orderErr));
+                    continue;
+                }
+
+                orderedIds.remove(from);
+                orderedIds.add(move.getOrder() - 1, move.getTaskId());
+            }
+
+            if (!errors.isEmpty()) {
+                return ResponseEntity.badRequest().body(errors);
             }
         }
 
-        if (dto.getOrder() <= existingCount) {
-            taskRepository.shiftOrders(dto.getCourseId(), dto.getOrder());
+        Map<Long, Long> changedKeys = rankKeysForOrder(current, orderedIds);
+        if (!changedKeys.isEmpty()) {
+            claimCourse(courseId, course.getVersion());
+            taskRepository.negateRankKeys(courseId, changedKeys.keySet());
+            taskRepository.updateRankKeys(courseId, changedKeys);
+            courseTaskListCache.evict(courseId);
         }
 
-        Task task = new Task(course, statementTrimmed, dto.getOrder(), type);
-        for (OptionDTO o : dto.getOptions()) {
-            task.addOption(new TaskOption(o.getOption().trim(), Boolean.TRUE.equals(o.getIsCorrect())));
+        return ResponseEntity.ok().build();
+    }
+
+    private static Map<Long, Long> rankKeysForOrder(List<TaskRankView> current, List<Long> orderedIds) {
+        Map<Long, Long> currentKeys = new HashMap<>();
+        for (TaskRankView task : current) {
+            currentKeys.put(task.getId(), task.getRankKey());
         }
-        taskRepository.save(task);
 
-        return ResponseEntity.status(201).build();
+        long[] sequence = new long[orderedIds.size()];
+        for (int position = 0; position < sequence.length; position++) {
+            sequence[position] = currentKeys.get(orderedIds.get(position));
+        }
+
+        boolean[] kept = TaskRank.longestIncreasingSubsequence(sequence);
+        Long[] keys = new Long[sequence.length];
+        for (int position = 0; position < sequence.length; position++) {
+            keys[position] = kept[position] ? sequence[position] : null;
+        }
+        if (!TaskRank.fillGaps(keys)) {
+            for (int position = 0; position < keys.length; position++) {
+                keys[position] = TaskRank.forPosition(position + 1);
+            }
+        }
+
+        Map<Long, Long> changedKeys = new LinkedHashMap<>();
+        for (int position = 0; position < keys.length; position++) {
+            if (keys[position] != sequence[position]) {
+                changedKeys.put(orderedIds.get(position), keys[position]);
+            }
+        }
+        return changedKeys;
+    }
+
+    /**
+     * Reads only the two keys around the requested slot, so an insert writes no row other than its
+     * own. When the neighbours are too close to fit another key, the course is respaced once.
+     */
+    private long rankKeyForOrder(Long courseId, int order) {
+        long[] keys = rankKeysAround(courseId, order);
+        if (keys == null) {
+            taskRepository.negateRankKeys(courseId);
+            taskRepository.respaceRankKeys(courseId, TaskRank.GAP);
+            keys = rankKeysAround(courseId, order);
+        }
+        return keys[0];
+    }
+
+    private long[] rankKeysAround(Long courseId, int order) {
+        List<Long> neighbours = taskRepository.findRankKeys(courseId, Math.max(order - 2, 0), 2);
+        if (order == 1) {
+            return TaskRank.between(0, neighbours.isEmpty() ? null : neighbours.getFirst(), 1);
+        }
+        return TaskRank.between(neighbours.getFirst(), neighbours.size() > 1 ? neighbours.get(1) : null, 1);
+    }
+
+    /**
+     * Gives every new task in the layout a key between its existing neighbours, leaving existing
+     * tasks untouched. Only if some run of new tasks does not fit is the course respaced first.
+     */
+    private void assignRankKeys(Long courseId, List<Task> layout) {
+        Long[] keys = new Long[layout.size()];
+        for (int position = 0; position < layout.size(); position++) {
+            Task task = layout.get(position);
+            keys[position] = task.getId() != null ? task.getRankKey() : null;
+        }
+
+        Long[] filled = keys.clone();
+        if (!TaskRank.fillGaps(filled)) {
+            taskRepository.negateRankKeys(courseId);
+            taskRepository.respaceRankKeys(courseId, TaskRank.GAP);
+
+            int existing = 0;
+            for (int position = 0; position < layout.size(); position++) {
+                if (keys[position] != null) {
+                    keys[position] = TaskRank.forPosition(++existing);
+                }
+            }
+            filled = keys;
+            TaskRank.fillGaps(filled);
+        }
+
+        for (int position = 0; position < layout.size(); position++) {
+            Task task = layout.get(position);
+            if (task.getId() == null) {
+                task.setRankKey(filled[position]);
+            }
+        }
+    }
+
+    private Task buildTask(Course course, String statement, long rankKey, Type type, List<OptionDTO> options) {
+        Task task = new Task(course, statement, rankKey, type);
+        if (options != null && !Type.OPEN_TEXT.equals(type)) {
+            for (OptionDTO o : options) {
+                task.addOption(new TaskOption(o.getOption().trim(), Boolean.TRUE.equals(o.getIsCorrect())));
+            }
+        }
+        return task;
+    }
+
+    private static ErrorItemDTO prefixed(String prefix, ErrorItemDTO error) {
+        return new ErrorItemDTO(prefix + error.getField(), error.getMessage());
+    }
+
+    /**
+     * Runs a write in its own transaction while holding the course's write lock. The lock is taken
+     * before the transaction starts and released after it commits, so the next write to the course
+     * sees this one. A course still locked after the configured wait is answered with 503; a write
+     * that keeps losing the course version to other instances is answered with 409.
+     */
+    private ResponseEntity writeToCourse(Long courseId, Supplier<ResponseEntity> write) {
+        return courseWriteLocks.tryWithLock(courseId, () -> optimisticRetry.inTransaction(write)
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                                .body(new ErrorItemDTO("courseId", "Course was changed by another write, try again"))))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(new ErrorItemDTO("courseId", "Course is busy with another write, try again")));
+    }
+
+    /**
+     * Bumps the course version read at the start of the write, failing the transaction if another
+     * write changed the course since. Called right before the first task write.
+     */
+    private void claimCourse(Long courseId, Long version) {
+        if (courseRepository.incrementVersion(courseId, version) == 0) {
+            courseStatementCache.evict(courseId);
+            throw new ObjectOptimisticLockingFailureException(Course.class, courseId);
+        }
     }
 
     // ----------
     // Validation
     // ----------
+    // The request-shape checks are package-private so the JMH benchmarks in src/jmh can call them.
+
+    private <T extends NewTaskDTO> ValidationErrors validateRequest(T dto, Type type) {
+        ValidationErrors errors = new ValidationErrors().addAll(validateFieldsNotNullOrEmpty(dto, type));
+
+        if (dto.getStatement() != null && !dto.getStatement().isEmpty()) {
+            String statementTrimmed = dto.getStatement().trim();
+            errors.add(validateStatementLength(statementTrimmed));
+
+            if (dto.getOptions() != null && (Type.SINGLE_CHOICE.equals(type) || Type.MULTIPLE_CHOICE.equals(type))) {
+                errors.add(validateOptions(dto.getOptions(), statementTrimmed, type));
+            }
+        }
+        if (dto.getOrder() != null) {
+            errors.add(validateOrderPositive(dto.getOrder()));
+        }
 
-    private <T extends NewTaskDTO> ResponseEntity<?> validateFieldsNotNullOrEmpty(T dto, Type type) {
+        return errors;
+    }
+
+    <T extends NewTaskDTO> List<ErrorItemDTO> validateFieldsNotNullOrEmpty(T dto, Type type) {
         List<ErrorItemDTO> nullFields = new ArrayList<>();
 
         if (dto.getCourseId() == null) {
             nullFields.add(new ErrorItemDTO("courseId", "courseId is required"));
         }
-        if (dto.getStatement() == null || dto.getStatement().isEmpty()) {
+        nullFields.addAll(validateFieldsNotNullOrEmpty(type, dto.getStatement(), dto.getOrder(), dto.getOptions()));
+
+        return nullFields;
+    }
+
+    List<ErrorItemDTO> validateFieldsNotNullOrEmpty(Type type, String statement, Integer order, List<OptionDTO> options) {
+        List<ErrorItemDTO> nullFields = new ArrayList<>();
+
+        if (type == null) {
+            nullFields.add(new ErrorItemDTO("type", "type is required"));
+        }
+        if (statement == null || statement.isEmpty()) {
             nullFields.add(new ErrorItemDTO("statement", "statement is required"));
         }
-        if (dto.getOptions() == null && (Type.SINGLE_CHOICE.equals(type) || Type.MULTIPLE_CHOICE.equals(type))) {
+        if (options == null && (Type.SINGLE_CHOICE.equals(type) || Type.MULTIPLE_CHOICE.equals(type))) {
             nullFields.add(new ErrorItemDTO("options", "options is required"));
         }
-        if (dto.getOrder() == null) {
+        if (order == null) {
             nullFields.add(new ErrorItemDTO("order", "order is required"));
         }
 
-        if (!nullFields.isEmpty()) {
-            return ResponseEntity.badRequest().body(nullFields.size() == 1 ? nullFields.getFirst() : nullFields);
-        }
-
-        return null;
+        return nullFields;
     }
 
-    private ResponseEntity<?> validateCourseIsBuilding(Course course) {
-        if (!Status.BUILDING.equals(course.getStatus())) {
-            return ResponseEntity.badRequest().body(new ErrorItemDTO(
+    private ErrorItemDTO validateCourseIsBuilding(Status status) {
+        if (!Status.BUILDING.equals(status)) {
+            return new ErrorItemDTO(
                     "status",
                     "Course must be in BUILDING status to receive tasks"
-            ));
+            );
         }
         return null;
     }
 
-    private ResponseEntity<?> validateStatementLength(String statement) {
+    private ErrorItemDTO validateStatementLength(String statement) {
         if (statement.length() < 4 || statement.length() > 255) {
-            return ResponseEntity.badRequest().body(new ErrorItemDTO(
+            return new ErrorItemDTO(
                     "statement",
                     "Statement must be between 4 and 255 characters"
-            ));
+            );
         }
         return null;
     }
 
-    private ResponseEntity<?> validateStatementUnique(Course course, String statement) {
-        if (taskRepository.existsByCourseAndStatement(course, statement)) {
-            return ResponseEntity.badRequest().body(new ErrorItemDTO(
-                    "statement",
-                    "Statement already exists in this course"
-            ));
-        }
-        return null;
+    private ErrorItemDTO validateStatementUnique(TaskCreationProbe state) {
+        return state.statementExists() ? STATEMENT_EXISTS_ERR : null;
     }
 
-    private ResponseEntity<?> validateOrderSequence(int existingCount, Integer requestedOrder) {
+    private ErrorItemDTO validateOrderPositive(Integer requestedOrder) {
         if (requestedOrder < 1) {
-            return ResponseEntity.badRequest().body(new ErrorItemDTO(
+            return new ErrorItemDTO(
                     "order",
                     "Order must be a positive integer"
-            ));
+            );
+        }
+        return null;
+    }
+
+    private ErrorItemDTO validateOrderSequence(int existingCount, Integer requestedOrder) {
+        ErrorItemDTO positiveErr = validateOrderPositive(requestedOrder);
+        if (positiveErr != null) {
+            return positiveErr;
         }
         if (requestedOrder > existingCount + 1) {
-            return ResponseEntity.badRequest().body(new ErrorItemDTO(
+            return new ErrorItemDTO(
                     "order",
                     "Invalid order sequence"
-            ));
+            );
+        }
+        return null;
+    }
+
+    private ErrorItemDTO validatePermutation(List<Long> currentIds, List<Long> taskIds) {
+        if (taskIds.size() != currentIds.size() || !new HashSet<>(taskIds).equals(new HashSet<>(currentIds))) {
+            return new ErrorItemDTO(
+                    "taskIds",
+                    "taskIds must list every task of the course exactly once"
+            );
         }
         return null;
     }
 
-    private ResponseEntity validateOptions(List<OptionDTO> options, String statement, Type type) {
+    /**
+     * Compares options in place, without trimmed or lowercased copies. When every character folds
+     * one-to-one (Latin-1 text outside the tr/az/lt locales) this gives the same result as comparing
+     * {@code trim().toLowerCase()} copies; anything else takes {@link #validateOptionsLowercased}.
+     */
+    ErrorItemDTO validateOptions(List<OptionDTO> options, String statement, Type type) {
         boolean singleChoice = Type.SINGLE_CHOICE.equals(type);
 
-        ResponseEntity optionSizeErr = validateNumberOfOptions(options.size(), singleChoice);
+        ErrorItemDTO optionSizeErr = validateNumberOfOptions(options.size(), singleChoice);
         if (optionSizeErr != null) {
             return optionSizeErr;
         }
 
+        if (!foldsPerChar(options, statement)) {
+            return validateOptionsLowercased(options, statement, singleChoice);
+        }
+
+        int correctCount = 0;
+
+        for (int i = 0; i < options.size(); i++) {
+            OptionDTO dto = options.get(i);
+            String option = dto.getOption();
+            if (option == null) {
+                return OPTION_NULL_ERR;
+            }
+
+            int start = trimStart(option);
+            int end = trimEnd(option, start);
+
+            if (end - start < 4 || end - start > 80) {
+                return OPTION_LENGTH_ERR;
+            }
+            // At most 5 options, so rescanning the previous ones is cheaper than remembering them
+            for (int j = 0; j < i; j++) {
+                String previous = options.get(j).getOption();
+                int previousStart = trimStart(previous);
+                if (equalsIgnoreCase(option, start, end, previous, previousStart, trimEnd(previous, previousStart))) {
+                    return OPTION_DUPLICATE_ERR;
+                }
+            }
+            if (equalsIgnoreCase(option, start, end, statement, 0, statement.length())) {
+                return OPTION_EQUALS_STATEMENT_ERR;
+            }
+            if (Boolean.TRUE.equals(dto.getIsCorrect())) {
+                correctCount++;
+            }
+        }
+
+        return validateOptionCorrectCount(options.size(), correctCount, singleChoice);
+    }
+
+    ErrorItemDTO validateOptionsLowercased(List<OptionDTO> options, String statement, boolean singleChoice) {
         int correctCount = 0;
         Set<String> optionSet = new HashSet<>();
         String statementLowercase = statement.toLowerCase();
@@ -168,71 +612,96 @@ public class TaskService {
         for (OptionDTO dto : options) {
             String option = dto.getOption();
             if (option == null) {
-                return ResponseEntity.badRequest().body(new ErrorItemDTO(
-                        "options",
-                        "Option text must not be null"
-                ));
+                return OPTION_NULL_ERR;
             }
 
             String optionTrimmedLowercase = option.trim().toLowerCase();
 
             if (optionTrimmedLowercase.length() < 4 || optionTrimmedLowercase.length() > 80) {
-                return ResponseEntity.badRequest().body(new ErrorItemDTO(
-                        "options",
-                        "Each option must have between 4 and 80 characters"
-                ));
+                return OPTION_LENGTH_ERR;
             }
             if (!optionSet.add(optionTrimmedLowercase)) {
-                return ResponseEntity.badRequest().body(new ErrorItemDTO(
-                        "options",
-                        "Options must be unique"
-                ));
+                return OPTION_DUPLICATE_ERR;
             }
             if (optionTrimmedLowercase.equals(statementLowercase)) {
-                return ResponseEntity.badRequest().body(new ErrorItemDTO(
-                        "options",
-                        "Options must not be equal to the statement"
-                ));
+                return OPTION_EQUALS_STATEMENT_ERR;
             }
             if (Boolean.TRUE.equals(dto.getIsCorrect())) {
                 correctCount++;
             }
         }
 
-        ResponseEntity optionCorrectCountErr = validateOptionCorrectCount(options.size(), correctCount, singleChoice);
-        if (optionCorrectCountErr != null) {
-            return optionCorrectCountErr;
+        return validateOptionCorrectCount(options.size(), correctCount, singleChoice);
+    }
+
+    private static boolean foldsPerChar(List<OptionDTO> options, String statement) {
+        String language = Locale.getDefault().getLanguage();
+        if (language.equals("tr") || language.equals("az") || language.equals("lt") || !isLatin1(statement)) {
+            return false;
+        }
+        for (int i = 0; i < options.size(); i++) {
+            String option = options.get(i).getOption();
+            if (option != null && !isLatin1(option)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLatin1(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        return null;
+    // Same bounds as String.trim()
+    private static int trimStart(String text) {
+        int start = 0;
+        while (start < text.length() && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String text, int start) {
+        int end = text.length();
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean equalsIgnoreCase(String a, int aStart, int aEnd, String b, int bStart, int bEnd) {
+        if (aEnd - aStart != bEnd - bStart) {
+            return false;
+        }
+        for (int i = 0; i < aEnd - aStart; i++) {
+            if (Character.toLowerCase(a.charAt(aStart + i)) != Character.toLowerCase(b.charAt(bStart + i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private ResponseEntity validateNumberOfOptions(int numOptions, boolean singleChoice) {
+    private ErrorItemDTO validateNumberOfOptions(int numOptions, boolean singleChoice) {
         int min = singleChoice ? 2 : 3;
         int max = 5;
 
         if (numOptions < min || numOptions > max) {
-            String message = singleChoice
-                    ? "Single choice must have between 2 and 5 options"
-                    : "Multiple choice must have between 3 and 5 options";
-
-            return ResponseEntity.badRequest().body(new ErrorItemDTO("options", message));
+            return singleChoice ? SINGLE_CHOICE_OPTION_COUNT_ERR : MULTIPLE_CHOICE_OPTION_COUNT_ERR;
         }
 
         return null;
     }
 
-    private ResponseEntity validateOptionCorrectCount(int numOptions, int correctCount, boolean singleChoice) {
+    private ErrorItemDTO validateOptionCorrectCount(int numOptions, int correctCount, boolean singleChoice) {
         if (singleChoice && correctCount != 1) {
-            return ResponseEntity.badRequest().body(new ErrorItemDTO(
-                    "options",
-                    "Single choice must have exactly one correct option"
-            ));
+            return SINGLE_CHOICE_CORRECT_COUNT_ERR;
         } else if (!singleChoice && correctCount < 2 || correctCount >= numOptions) {
-            return ResponseEntity.badRequest().body(new ErrorItemDTO(
-                    "options",
-                    "Multiple choice must have two or more correct options and at least one incorrect option"
-            ));
+            return MULTIPLE_CHOICE_CORRECT_COUNT_ERR;
         }
 
         return null;
@@ -0,0 +1,26 @@
+package br.com.alura.AluraFake.task.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class NewTaskBatchDTO {
+    @NotEmpty
+    @Valid
+    private List<NewTaskBatchItemDTO> tasks;
+
+    public NewTaskBatchDTO() {}
+
+    public NewTaskBatchDTO(List<NewTaskBatchItemDTO> tasks) {
+        this.tasks = tasks;
+    }
+
+    public List<NewTaskBatchItemDTO> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<NewTaskBatchItemDTO> tasks) {
+        this.tasks = tasks;
+    }
+}
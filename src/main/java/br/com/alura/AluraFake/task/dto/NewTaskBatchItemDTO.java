@@ -0,0 +1,67 @@
+package br.com.alura.AluraFake.task.dto;
+
+import br.com.alura.AluraFake.task.Type;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.validator.constraints.Length;
+
+import java.util.List;
+
+public class NewTaskBatchItemDTO {
+    @NotNull
+    private Type type;
+
+    @NotBlank
+    @Length(min = 4, max = 255)
+    private String statement;
+
+    @NotNull
+    @Min(1)
+    private Integer order;
+
+    @Valid
+    private List<OptionDTO> options;
+
+    public NewTaskBatchItemDTO() {}
+
+    public NewTaskBatchItemDTO(Type type, String statement, Integer order, List<OptionDTO> options) {
+        this.type = type;
+        this.statement = statement;
+        this.order = order;
+        this.options = options;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public void setStatement(String statement) {
+        this.statement = statement;
+    }
+
+    public Integer getOrder() {
+        return order;
+    }
+
+    public void setOrder(Integer order) {
+        this.order = order;
+    }
+
+    public List<OptionDTO> getOptions() {
+        return options;
+    }
+
+    public void setOptions(List<OptionDTO> options) {
+        this.options = options;
+    }
+}
@@ -1,7 +1,5 @@
 package br.com.alura.AluraFake.task.dto;
 
-import br.com.alura.AluraFake.task.TaskOption;
-
 import java.io.Serializable;
 
 public class OptionListItemDTO implements Serializable {
@@ -10,10 +8,10 @@ public class OptionListItemDTO implements Serializable {
     private String option;
     private boolean isCorrect;
 
-    public OptionListItemDTO(TaskOption option) {
-        this.id = option.getId();
-        this.option = option.getOptionText();
-        this.isCorrect = option.isCorrect();
+    public OptionListItemDTO(Long id, String option, boolean isCorrect) {
+        this.id = id;
+        this.option = option;
+        this.isCorrect = isCorrect;
     }
 
     public Long getId() {
@@ -1,12 +1,11 @@
 package br.com.alura.AluraFake.task.dto;
 
-import br.com.alura.AluraFake.task.Task;
 import br.com.alura.AluraFake.task.Type;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class TaskListItemDTO implements Serializable {
@@ -17,14 +16,34 @@ public class TaskListItemDTO implements Serializable {
     private Type type;
     private List<OptionListItemDTO> options;
 
-    public TaskListItemDTO(Task task) {
-        this.id = task.getId();
-        this.order = task.getOrderIndex();
-        this.statement = task.getStatement();
-        this.type = task.getType();
-        this.options = task.getOptions().stream()
-                .map(OptionListItemDTO::new)
-                .toList();
+    public TaskListItemDTO(Long id, Integer order, String statement, Type type, List<OptionListItemDTO> options) {
+        this.id = id;
+        this.order = order;
+        this.statement = statement;
+        this.type = type;
+        this.options = options;
+    }
+
+    /**
+     * Folds the rows of the listing join, which arrive grouped by task in rank order, into one item
+     * per task. Tasks are stored with sparse rank keys, so the dense 1..n order is their position.
+     */
+    public static List<TaskListItemDTO> fromRows(List<TaskListRow> rows) {
+        List<TaskListItemDTO> items = new ArrayList<>();
+        TaskListRow current = null;
+        List<OptionListItemDTO> options = null;
+
+        for (TaskListRow row : rows) {
+            if (current == null || !current.getTaskId().equals(row.getTaskId())) {
+                current = row;
+                options = new ArrayList<>();
+                items.add(new TaskListItemDTO(row.getTaskId(), items.size() + 1, row.getStatement(), row.getType(), options));
+            }
+            if (row.getOptionId() != null) {
+                options.add(new OptionListItemDTO(row.getOptionId(), row.getOptionText(), row.getIsCorrect()));
+            }
+        }
+        return items;
     }
 
     public Long getId() {
@@ -0,0 +1,50 @@
+package br.com.alura.AluraFake.task.dto;
+
+import br.com.alura.AluraFake.task.Type;
+
+/**
+ * One row of the task listing join: a task with one of its options, or with no option columns
+ * for tasks that have none.
+ */
+public class TaskListRow {
+
+    private final Long taskId;
+    private final String statement;
+    private final Type type;
+    private final Long optionId;
+    private final String optionText;
+    private final Boolean isCorrect;
+
+    public TaskListRow(Long taskId, String statement, Type type, Long optionId, String optionText, Boolean isCorrect) {
+        this.taskId = taskId;
+        this.statement = statement;
+        this.type = type;
+        this.optionId = optionId;
+        this.optionText = optionText;
+        this.isCorrect = isCorrect;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getOptionId() {
+        return optionId;
+    }
+
+    public String getOptionText() {
+        return optionText;
+    }
+
+    public Boolean getIsCorrect() {
+        return isCorrect;
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.alura.AluraFake.task.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class TaskMoveDTO {
+    @NotNull
+    private Long taskId;
+
+    @NotNull
+    @Min(1)
+    private Integer order;
+
+    public TaskMoveDTO() {}
+
+    public TaskMoveDTO(Long taskId, Integer order) {
+        this.taskId = taskId;
+        this.order = order;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+
+    public Integer getOrder() {
+        return order;
+    }
+
+    public void setOrder(Integer order) {
+        this.order = order;
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.alura.AluraFake.task.dto;
+
+import jakarta.validation.Valid;
+
+import java.util.List;
+
+public class TaskOrderDTO {
+    private List<Long> taskIds;
+
+    @Valid
+    private List<TaskMoveDTO> moves;
+
+    public TaskOrderDTO() {}
+
+    public static TaskOrderDTO ofTaskIds(List<Long> taskIds) {
+        TaskOrderDTO dto = new TaskOrderDTO();
+        dto.setTaskIds(taskIds);
+        return dto;
+    }
+
+    public static TaskOrderDTO ofMoves(List<TaskMoveDTO> moves) {
+        TaskOrderDTO dto = new TaskOrderDTO();
+        dto.setMoves(moves);
+        return dto;
+    }
+
+    public List<Long> getTaskIds() {
+        return taskIds;
+    }
+
+    public void setTaskIds(List<Long> taskIds) {
+        this.taskIds = taskIds;
+    }
+
+    public List<TaskMoveDTO> getMoves() {
+        return moves;
+    }
+
+    public void setMoves(List<TaskMoveDTO> moves) {
+        this.moves = moves;
+    }
+}
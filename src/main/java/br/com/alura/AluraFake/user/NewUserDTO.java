@@ -10,6 +10,7 @@ public class NewUserDTO {
     private String name;
     @NotBlank
     @Email
+    @Length(max = 50)
     private String email;
     @NotNull
     private Role role;
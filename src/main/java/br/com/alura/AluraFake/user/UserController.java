@@ -1,37 +1,117 @@
 package br.com.alura.AluraFake.user;
 
 import br.com.alura.AluraFake.util.ErrorItemDTO;
+import br.com.alura.AluraFake.util.KeysetPage;
+import br.com.alura.AluraFake.util.NdjsonQueryStreamer;
 import jakarta.validation.Valid;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.*;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 public class UserController {
 
     private final UserRepository userRepository;
+    private final NdjsonQueryStreamer ndjsonQueryStreamer;
+    private final UserEmailCache userEmailCache;
+    private final UserImporter userImporter;
 
-    public UserController(UserRepository userRepository) {
+    public UserController(UserRepository userRepository, NdjsonQueryStreamer ndjsonQueryStreamer,
+                          UserEmailCache userEmailCache, UserImporter userImporter) {
         this.userRepository = userRepository;
+        this.ndjsonQueryStreamer = ndjsonQueryStreamer;
+        this.userEmailCache = userEmailCache;
+        this.userImporter = userImporter;
     }
 
-    @Transactional
+    /**
+     * Only asks the database whether the email is taken when {@link UserEmailCache} can't tell. The
+     * insert runs in its own transaction, so {@code UC_Email} still rejects an email registered
+     * elsewhere in the meantime.
+     */
     @PostMapping("/user/new")
     public ResponseEntity newStudent(@RequestBody @Valid NewUserDTO newUser) {
-        if(userRepository.existsByEmail(newUser.getEmail())) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(new ErrorItemDTO("email", "Email já cadastrado no sistema"));
+        String email = newUser.getEmail();
+        if (userEmailCache.get(email) != null
+                || (userEmailCache.mightBeRegistered(email) && userRepository.existsByEmail(email))) {
+            return emailTaken();
         }
         User user = newUser.toModel();
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message == null || !message.contains("UC_Email")) {
+                throw e;
+            }
+            return emailTaken();
+        }
+        userEmailCache.put(user);
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
-    @GetMapping("/user/all")
-    public List<UserListItemDTO> listAllUsers() {
-        return userRepository.findAll().stream().map(UserListItemDTO::new).toList();
+    private static ResponseEntity<ErrorItemDTO> emailTaken() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorItemDTO("email", "Email já cadastrado no sistema"));
+    }
+
+    /**
+     * Imports a CSV (with a {@code name,email,role[,password]} header) or NDJSON upload of
+     * {@link NewUserDTO}s, answering with one NDJSON result per record as the upload is processed.
+     * <p>
+     * Each chunk commits before its results are written, and the import is not undone if the
+     * response ends early (a dropped connection, or {@code spring.mvc.async.request-timeout}). A
+     * report with fewer results than records is therefore no sign that nothing landed: the client
+     * should resend only the records after the last result it got, or the whole upload, whose rows
+     * already inserted then come back as {@code REJECTED} with the email-taken error rather than
+     * being imported twice.
+     */
+    @PostMapping(value = "/user/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                             InputStream body) {
+        UserImporter.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? UserImporter.Format.NDJSON
+                : UserImporter.Format.CSV;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(userImporter.importUsers(body, format));
+    }
+
+    @GetMapping(value = "/user/all", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity listAllUsers(@RequestParam(name = "role", required = false) Role role,
+                                       @RequestParam(name = "limit", required = false) Integer limit,
+                                       @RequestParam(name = "after", required = false) Long after) {
+        int pageSize = limit == null ? KeysetPage.DEFAULT_LIMIT : limit;
+        ErrorItemDTO limitErr = KeysetPage.validateLimit(pageSize);
+        if (limitErr != null) {
+            return ResponseEntity.badRequest().body(limitErr);
+        }
+
+        long cursor = after == null ? 0L : after;
+        List<UserListItemDTO> users = role == null
+                ? userRepository.findListItemsAfter(cursor, Limit.of(pageSize + 1))
+                : userRepository.findListItemsByRoleAfter(role, cursor, Limit.of(pageSize + 1));
+        return KeysetPage.toResponse(users, pageSize, UserListItemDTO::getId);
+    }
+
+    @GetMapping(value = "/user/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(@RequestParam(name = "role", required = false) Role role) {
+        RowMapper<UserListItemDTO> rowMapper = (rs, rowNum) -> new UserListItemDTO(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("email"),
+                rs.getString("role") == null ? null : Role.valueOf(rs.getString("role")));
+
+        StreamingResponseBody body = role == null
+                ? ndjsonQueryStreamer.stream("SELECT id, name, email, role FROM User ORDER BY id", rowMapper)
+                : ndjsonQueryStreamer.stream("SELECT id, name, email, role FROM User WHERE role = ? ORDER BY id", rowMapper, role.name());
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
 }
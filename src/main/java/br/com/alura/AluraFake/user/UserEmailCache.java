@@ -0,0 +1,129 @@
+package br.com.alura.AluraFake.user;
+
+import br.com.alura.AluraFake.util.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * Id and role of users by email, plus a Bloom filter over every email this instance knows of. Users
+ * are never deleted and their email and role never change, so a cached user is always right. The
+ * filter is loaded once at startup and is only "definitely absent" for emails no other instance
+ * registered since, so callers that trust it must still rely on {@code UC_Email}.
+ */
+@Component
+public class UserEmailCache implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEmailCache.class);
+
+    public record CachedUser(Long id, Role role) {
+
+        public boolean isInstructor() {
+            return Role.INSTRUCTOR.equals(role);
+        }
+    }
+
+    private final Cache<String, CachedUser> cache;
+    private final BloomFilter knownEmails;
+    private final DataSource dataSource;
+    private final Executor executor;
+    private volatile boolean knownEmailsLoaded;
+
+    @Autowired
+    public UserEmailCache(ObjectProvider<DataSource> dataSource,
+                          @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) ObjectProvider<Executor> executor,
+                          @Value("${alurafake.cache.user-emails.max-size:100000}") long maxSize,
+                          @Value("${alurafake.cache.user-emails.expected-users:1000000}") long expectedUsers,
+                          @Value("${alurafake.cache.user-emails.false-positive-rate:0.01}") double falsePositiveRate) {
+        this(dataSource.getIfAvailable(), executor.getIfAvailable(() -> Runnable::run), maxSize, expectedUsers, falsePositiveRate);
+    }
+
+    UserEmailCache(DataSource dataSource, Executor executor, long maxSize, long expectedUsers, double falsePositiveRate) {
+        this.dataSource = dataSource;
+        this.executor = executor;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.knownEmails = new BloomFilter(expectedUsers, falsePositiveRate);
+    }
+
+    /**
+     * Streams every email into the filter on {@code executor}, so a large user table does not hold
+     * up startup. Until it is done, or when there is no datasource, every email might be registered.
+     * Users registered here meanwhile are added as usual and kept when loading finishes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadKnownEmails() {
+        if (dataSource == null) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                // Connector/J only streams a forward-only result set row by row with this fetch size
+                jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+                jdbcTemplate.query("SELECT email FROM User", rs -> {
+                    knownEmails.add(keyOf(rs.getString(1)));
+                });
+                knownEmailsLoaded = true;
+            } catch (RuntimeException e) {
+                log.warn("Could not load known emails, every email will be checked against the database", e);
+            }
+        });
+    }
+
+    /** {@code null} when the user is not cached, which says nothing about whether it exists. */
+    public CachedUser get(String email) {
+        return cache.getIfPresent(keyOf(email));
+    }
+
+    public CachedUser put(User user) {
+        CachedUser cached = new CachedUser(user.getId(), user.getRole());
+        String key = keyOf(user.getEmail());
+        cache.put(key, cached);
+        knownEmails.add(key);
+        return cached;
+    }
+
+    /** For users inserted without going through {@link #put}, whose id is not at hand. */
+    public void addRegistered(String email) {
+        knownEmails.add(keyOf(email));
+    }
+
+    /** {@code false} only when no user with this email existed or registered here since startup. */
+    public boolean mightBeRegistered(String email) {
+        return !knownEmailsLoaded || knownEmails.mightContain(keyOf(email));
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    // UC_Email compares with utf8mb4_unicode_ci, which ignores case
+    private static String keyOf(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "userEmails");
+    }
+}
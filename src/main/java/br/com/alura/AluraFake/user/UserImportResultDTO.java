@@ -0,0 +1,41 @@
+package br.com.alura.AluraFake.user;
+
+import br.com.alura.AluraFake.util.ErrorItemDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/** One line of the {@code /user/import} report, for the input record starting on {@code line}. */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class UserImportResultDTO {
+
+    public enum Status { CREATED, REJECTED }
+
+    private final long line;
+    private final String email;
+    private final Status status;
+    private final List<ErrorItemDTO> errors;
+
+    public UserImportResultDTO(long line, String email, Status status, List<ErrorItemDTO> errors) {
+        this.line = line;
+        this.email = email;
+        this.status = status;
+        this.errors = errors;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public List<ErrorItemDTO> getErrors() {
+        return errors;
+    }
+}
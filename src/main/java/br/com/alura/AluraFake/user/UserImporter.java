@@ -0,0 +1,330 @@
+package br.com.alura.AluraFake.user;
+
+import br.com.alura.AluraFake.util.CsvReader;
+import br.com.alura.AluraFake.util.ErrorItemDTO;
+import br.com.alura.AluraFake.util.PasswordGeneration;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Imports users from a CSV or NDJSON upload, reading it a chunk of records at a time, so memory use
+ * does not depend on the size of the upload. Each record is validated like {@link NewUserDTO}; the
+ * emails of a chunk are checked with one IN query and its new users are inserted in one JDBC batch.
+ * A result for every record is written back as soon as its chunk is done.
+ */
+@Component
+public class UserImporter {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final ErrorItemDTO EMAIL_TAKEN_ERR = new ErrorItemDTO("email", "Email já cadastrado no sistema");
+    private static final ErrorItemDTO ROW_REJECTED_ERR = new ErrorItemDTO("line", "Rejected by the database");
+    private static final ErrorItemDTO NOT_AN_OBJECT_ERR = new ErrorItemDTO("line", "Expected a JSON object");
+    private static final String INSERT_SQL = "INSERT INTO User (name, email, role, password) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectReader dtoReader;
+    private final ObjectWriter resultWriter;
+    private final UserEmailCache userEmailCache;
+    private final int chunkSize;
+
+    @Autowired
+    public UserImporter(DataSource dataSource, PlatformTransactionManager transactionManager, Validator validator,
+                        ObjectMapper objectMapper, UserEmailCache userEmailCache,
+                        @Value("${alurafake.user-import.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.dtoReader = objectMapper.readerFor(NewUserDTO.class);
+        this.resultWriter = objectMapper.writerFor(UserImportResultDTO.class);
+        this.userEmailCache = userEmailCache;
+        this.chunkSize = chunkSize;
+    }
+
+    private static final class Row {
+        final long line;
+        final NewUserDTO user;
+        final List<ErrorItemDTO> errors = new ArrayList<>();
+
+        Row(long line, NewUserDTO user) {
+            this.line = line;
+            this.user = user;
+        }
+
+        String email() {
+            return user == null ? null : user.getEmail();
+        }
+    }
+
+    public StreamingResponseBody importUsers(InputStream in, Format format) {
+        return out -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            Iterator<Row> rows = format == Format.CSV ? csvRows(reader) : ndjsonRows(reader);
+
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, out);
+                    chunk.clear();
+                }
+            }
+            importChunk(chunk, out);
+        };
+    }
+
+    private void importChunk(List<Row> chunk, OutputStream out) throws IOException {
+        List<Row> valid = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.user != null) {
+                validate(row);
+            }
+            if (row.errors.isEmpty()) {
+                valid.add(row);
+            }
+        }
+
+        Set<String> taken = registeredEmails(valid);
+        List<Row> toInsert = new ArrayList<>(valid.size());
+        for (Row row : valid) {
+            // Also catches an email repeated within the chunk; earlier chunks are already committed
+            if (!taken.add(keyOf(row.email()))) {
+                row.errors.add(EMAIL_TAKEN_ERR);
+            } else {
+                toInsert.add(row);
+            }
+        }
+        insert(toInsert);
+
+        for (Row row : chunk) {
+            UserImportResultDTO.Status status = row.errors.isEmpty()
+                    ? UserImportResultDTO.Status.CREATED
+                    : UserImportResultDTO.Status.REJECTED;
+            out.write(resultWriter.writeValueAsBytes(new UserImportResultDTO(row.line, row.email(), status, row.errors)));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    // A field that already failed to parse is not reported again as missing
+    private void validate(Row row) {
+        Set<String> parseErrors = new HashSet<>();
+        for (ErrorItemDTO error : row.errors) {
+            parseErrors.add(error.getField());
+        }
+        for (ConstraintViolation<NewUserDTO> violation : validator.validate(row.user)) {
+            String field = violation.getPropertyPath().toString();
+            if (!parseErrors.contains(field)) {
+                row.errors.add(new ErrorItemDTO(field, violation.getMessage()));
+            }
+        }
+        row.errors.sort(Comparator.comparing(ErrorItemDTO::getField));
+    }
+
+    private Set<String> registeredEmails(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return new HashSet<>();
+        }
+        Set<String> emails = new HashSet<>();
+        for (Row row : rows) {
+            emails.add(row.email());
+        }
+        Set<String> registered = new HashSet<>();
+        namedJdbcTemplate.query("SELECT email FROM User WHERE email IN (:emails)", Map.of("emails", emails),
+                rs -> {
+                    registered.add(keyOf(rs.getString(1)));
+                });
+        return registered;
+    }
+
+    private void insert(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            batch.add(insertArgs(row.user));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+        } catch (DataIntegrityViolationException e) {
+            // Usually someone registered one of the emails since the IN query; find the rows one by one
+            for (Row row : rows) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, insertArgs(row.user));
+                } catch (DuplicateKeyException duplicate) {
+                    row.errors.add(EMAIL_TAKEN_ERR);
+                } catch (DataIntegrityViolationException rejected) {
+                    row.errors.add(ROW_REJECTED_ERR);
+                }
+            }
+        }
+        for (Row row : rows) {
+            if (row.errors.isEmpty()) {
+                userEmailCache.addRegistered(row.email());
+            }
+        }
+    }
+
+    private static Object[] insertArgs(NewUserDTO user) {
+        String password = user.getPassword() == null || user.getPassword().isEmpty()
+                ? PasswordGeneration.generatePassword()
+                : user.getPassword();
+        return new Object[]{user.getName(), user.getEmail(), user.getRole().name(), password};
+    }
+
+    // UC_Email compares with utf8mb4_unicode_ci, which ignores case
+    private static String keyOf(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // -------
+    // Parsing
+    // -------
+
+    private Iterator<Row> csvRows(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        Map<String, Integer> columns = new HashMap<>();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        List<String> missing = new ArrayList<>();
+        for (String column : List.of("name", "email", "role")) {
+            if (!columns.containsKey(column)) {
+                missing.add(column);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Row row = new Row(1, null);
+            row.errors.add(new ErrorItemDTO("header", "Missing columns: " + String.join(", ", missing)));
+            return List.of(row).iterator();
+        }
+
+        return new RowIterator() {
+            @Override
+            Row read() throws IOException {
+                List<String> fields;
+                do {
+                    fields = csv.next();
+                } while (fields != null && fields.size() == 1 && fields.getFirst().isBlank());
+                if (fields == null) {
+                    return null;
+                }
+
+                NewUserDTO user = new NewUserDTO();
+                user.setName(field(fields, columns.get("name")));
+                user.setEmail(field(fields, columns.get("email")));
+                user.setPassword(field(fields, columns.get("password")));
+                Row row = new Row(csv.recordLine(), user);
+
+                String role = field(fields, columns.get("role"));
+                if (role != null && !role.isBlank()) {
+                    try {
+                        user.setRole(Role.valueOf(role.trim().toUpperCase(Locale.ROOT)));
+                    } catch (IllegalArgumentException e) {
+                        row.errors.add(new ErrorItemDTO("role", "Role must be one of " + Arrays.toString(Role.values())));
+                    }
+                }
+                return row;
+            }
+        };
+    }
+
+    private static String field(List<String> fields, Integer column) {
+        return column == null || column >= fields.size() ? null : fields.get(column);
+    }
+
+    private Iterator<Row> ndjsonRows(BufferedReader reader) {
+        return new RowIterator() {
+            private long line;
+
+            @Override
+            Row read() throws IOException {
+                String json;
+                do {
+                    json = reader.readLine();
+                    line++;
+                } while (json != null && json.isBlank());
+                if (json == null) {
+                    return null;
+                }
+
+                try {
+                    NewUserDTO user = dtoReader.readValue(json);
+                    Row row = new Row(line, user);
+                    if (user == null) {
+                        row.errors.add(NOT_AN_OBJECT_ERR);
+                    }
+                    return row;
+                } catch (JsonMappingException e) {
+                    Row row = new Row(line, null);
+                    String field = e.getPath().isEmpty() ? "line" : e.getPath().getLast().getFieldName();
+                    row.errors.add(new ErrorItemDTO(field == null ? "line" : field, "Invalid value"));
+                    return row;
+                } catch (JsonProcessingException e) {
+                    Row row = new Row(line, null);
+                    row.errors.add(new ErrorItemDTO("line", "Malformed JSON"));
+                    return row;
+                }
+            }
+        };
+    }
+
+    /** Reads ahead one row, so {@link #hasNext()} can answer without losing it. */
+    private abstract static class RowIterator implements Iterator<Row> {
+        private Row next;
+        private boolean done;
+
+        abstract Row read() throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    next = read();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Row row = next;
+            next = null;
+            return row;
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package br.com.alura.AluraFake.user;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.io.Serializable;
 
 public class UserListItemDTO implements Serializable {
 
+    @JsonIgnore
+    private Long id;
     private String name;
     private String email;
     private Role role;
 
-    public UserListItemDTO(User user) {
-        this.name = user.getName();
-        this.email = user.getEmail();
-        this.role = user.getRole();
+    public UserListItemDTO(Long id, String name, String email, Role role) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.role = role;
+    }
+
+    @JsonIgnore
+    public Long getId() {
+        return id;
     }
 
     public String getName() {
@@ -1,8 +1,10 @@
 package br.com.alura.AluraFake.user;
 
-
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +12,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
 
     Optional<User> findByEmail(String email);
+
+    @Query("""
+            SELECT new br.com.alura.AluraFake.user.UserListItemDTO(u.id, u.name, u.email, u.role)
+            FROM User u
+            WHERE u.id > :after
+            ORDER BY u.id""")
+    List<UserListItemDTO> findListItemsAfter(Long after, Limit limit);
+
+    @Query("""
+            SELECT new br.com.alura.AluraFake.user.UserListItemDTO(u.id, u.name, u.email, u.role)
+            FROM User u
+            WHERE u.role = :role AND u.id > :after
+            ORDER BY u.id""")
+    List<UserListItemDTO> findListItemsByRoleAfter(Role role, Long after, Limit limit);
 }
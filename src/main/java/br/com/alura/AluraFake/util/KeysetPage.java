@@ -0,0 +1,37 @@
+package br.com.alura.AluraFake.util;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Shared contract of the {@code limit}/{@code after} listings: queries fetch one row more than the
+ * page size, and that extra row only signals that a next page exists.
+ */
+public final class KeysetPage {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private KeysetPage() {}
+
+    public static ErrorItemDTO validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return new ErrorItemDTO("limit", "limit must be between 1 and " + MAX_LIMIT);
+        }
+        return null;
+    }
+
+    public static <T> ResponseEntity<List<T>> toResponse(List<T> rows, int limit, Function<T, Long> cursorOf) {
+        if (rows.size() <= limit) {
+            return ResponseEntity.ok(rows);
+        }
+
+        List<T> page = rows.subList(0, limit);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(cursorOf.apply(page.getLast())))
+                .body(page);
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.alura.AluraFake.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes query results as newline-delimited JSON while the rows are still being read, so memory
+ * use does not depend on how many rows the query returns. The body is written asynchronously, so
+ * a stream is cut at {@code spring.mvc.async.request-timeout} however many rows are left.
+ */
+@Component
+public class NdjsonQueryStreamer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectWriter objectWriter;
+
+    @Autowired
+    public NdjsonQueryStreamer(DataSource dataSource, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Connector/J only streams a forward-only result set row by row with this fetch size
+        this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.objectWriter = objectMapper.writer();
+    }
+
+    public <T> StreamingResponseBody stream(String sql, RowMapper<T> rowMapper, Object... args) {
+        return out -> {
+            int[] rowNum = {0};
+            jdbcTemplate.query(sql, rs -> {
+                try {
+                    out.write(objectWriter.writeValueAsBytes(rowMapper.mapRow(rs, rowNum[0]++)));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args);
+        };
+    }
+}
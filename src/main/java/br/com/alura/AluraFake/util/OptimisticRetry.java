@@ -0,0 +1,61 @@
+package br.com.alura.AluraFake.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write in its own transaction and, when it loses an optimistic version check, runs it again
+ * in a fresh transaction after a short random pause. Attempts are bounded; once they are used up,
+ * or the thread is interrupted while pausing, the result is empty.
+ */
+@Component
+public class OptimisticRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffNanos;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+                           @Value("${alurafake.optimistic-retry.max-attempts:3}") int maxAttempts,
+                           @Value("${alurafake.optimistic-retry.backoff:20ms}") Duration backoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.backoffNanos = backoff.toNanos();
+    }
+
+    public <T> Optional<T> inTransaction(Supplier<T> write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return Optional.ofNullable(transactionTemplate.execute(status -> write.get()));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts || !pause(attempt)) {
+                    return Optional.empty();
+                }
+            }
+        }
+    }
+
+    private boolean pause(int attempt) {
+        // Full jitter over a doubling window, so writers that collided don't collide again in step
+        long window = backoffNanos << (attempt - 1);
+        if (window <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(window));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.alura.AluraFake.util;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the errors of every check instead of stopping at the first one. A single error is
+ * answered as one {@link ErrorItemDTO}, several as a list, as the endpoints always did.
+ */
+public final class ValidationErrors {
+
+    private final List<ErrorItemDTO> errors = new ArrayList<>();
+
+    /** Ignores {@code null}, so checks that return {@code null} on success can be added directly. */
+    public ValidationErrors add(ErrorItemDTO error) {
+        if (error != null) {
+            errors.add(error);
+        }
+        return this;
+    }
+
+    public ValidationErrors addAll(List<ErrorItemDTO> errors) {
+        this.errors.addAll(errors);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return errors.isEmpty();
+    }
+
+    public ResponseEntity<Object> toResponse() {
+        return ResponseEntity.badRequest().body(errors.size() == 1 ? errors.getFirst() : errors);
+    }
+}
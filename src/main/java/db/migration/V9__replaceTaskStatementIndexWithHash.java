@@ -0,0 +1,103 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Replaces uq_task_course_statement with a unique index on the SHA-256 of the normalized statement.
+ * The hashes are computed here rather than in SQL, whose {@code TRIM} and {@code LOWER} do not match
+ * {@code String.trim()} and {@code toLowerCase(Locale.ROOT)}. The normalization is a copy of
+ * {@code Task.hashStatement} as of this version, so later changes to it don't change this migration.
+ * <p>
+ * The old index let through statements that only differ by surrounding whitespace. The second of
+ * them gets the hash of its statement as stored instead; the first still blocks new copies.
+ */
+public class V9__replaceTaskStatementIndexWithHash extends BaseJavaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(V9__replaceTaskStatementIndexWithHash.class);
+    private static final int PAGE_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("ALTER TABLE Task ADD COLUMN statementHash binary(32) NULL AFTER statement");
+            backfillStatementHashes(connection);
+            ddl.execute("""
+                    ALTER TABLE Task
+                      MODIFY statementHash binary(32) NOT NULL,
+                      DROP INDEX uq_task_course_statement,
+                      ADD CONSTRAINT uq_task_course_statement_hash UNIQUE (course_id, statementHash)""");
+        }
+    }
+
+    /** Sets {@code statementHash} on every task, a page of tasks at a time in course order. */
+    public static void backfillStatementHashes(Connection connection) throws SQLException {
+        long courseId = 0;
+        long id = 0;
+        Set<ByteBuffer> courseHashes = new HashSet<>();
+        try (PreparedStatement select = connection.prepareStatement("""
+                     SELECT id, course_id, statement FROM Task
+                     WHERE course_id > ? OR (course_id = ? AND id > ?)
+                     ORDER BY course_id, id
+                     LIMIT ?""");
+             PreparedStatement update = connection.prepareStatement("UPDATE Task SET statementHash = ? WHERE id = ?")) {
+            int rows = PAGE_SIZE;
+            while (rows == PAGE_SIZE) {
+                select.setLong(1, courseId);
+                select.setLong(2, courseId);
+                select.setLong(3, id);
+                select.setInt(4, PAGE_SIZE);
+                rows = 0;
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        id = rs.getLong("id");
+                        if (rs.getLong("course_id") != courseId) {
+                            courseId = rs.getLong("course_id");
+                            courseHashes.clear();
+                        }
+                        String statement = rs.getString("statement");
+                        byte[] hash = sha256(normalize(statement));
+                        if (!courseHashes.add(ByteBuffer.wrap(hash))) {
+                            log.warn("Task {} repeats a statement of course {}; hashing it as stored", id, courseId);
+                            hash = sha256(statement);
+                            courseHashes.add(ByteBuffer.wrap(hash));
+                        }
+                        update.setBytes(1, hash);
+                        update.setLong(2, id);
+                        update.addBatch();
+                    }
+                }
+                update.executeBatch();
+            }
+        }
+    }
+
+    private static String normalize(String statement) {
+        return statement.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS IdGenerator (
+  name varchar(50) NOT NULL,
+  next_val bigint(20) NOT NULL,
+  PRIMARY KEY (name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO IdGenerator (name, next_val) SELECT 'Task', COALESCE(MAX(id), 0) + 1 FROM Task;
+INSERT INTO IdGenerator (name, next_val) SELECT 'TaskOption', COALESCE(MAX(id), 0) + 1 FROM TaskOption;
@@ -0,0 +1,9 @@
+ALTER TABLE Task ADD COLUMN rankKey bigint(20) NULL AFTER id;
+
+UPDATE Task SET rankKey = orderIndex * 1048576;
+
+ALTER TABLE Task
+  MODIFY rankKey bigint(20) NOT NULL,
+  DROP INDEX uq_task_course_order,
+  ADD CONSTRAINT uq_task_course_rank UNIQUE (course_id, rankKey),
+  DROP COLUMN orderIndex;
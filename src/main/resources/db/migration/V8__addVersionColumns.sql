@@ -0,0 +1,3 @@
+ALTER TABLE Course ADD COLUMN version bigint(20) NOT NULL DEFAULT 0;
+
+ALTER TABLE Task ADD COLUMN version bigint(20) NOT NULL DEFAULT 0;
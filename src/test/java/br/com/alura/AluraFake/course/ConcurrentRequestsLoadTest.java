@@ -0,0 +1,115 @@
+package br.com.alura.AluraFake.course;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.NestedTestConfiguration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput of {@code GET /course/all} under 1k concurrent clients, with requests handled on the
+ * Tomcat platform-thread pool and on virtual threads. Each request is a database round trip, so
+ * both modes share the same connection pool. Only reads, so the test database is left as is; the
+ * profile property is set too, or {@code DataSeeder} would see {@code dev} and seed it.
+ * Run with {@code mvn test -Dtest=ConcurrentRequestsLoadTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ConcurrentRequestsLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentRequestsLoadTest.class);
+
+    private static final int CLIENTS = 1000;
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 2;
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"spring.profiles.active=test", "spring.threads.virtual.enabled=false"})
+    @ActiveProfiles("test")
+    class PlatformThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Test
+        void listCourses__requests_per_second() throws Exception {
+            measure("platform threads", port);
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"spring.profiles.active=test", "spring.threads.virtual.enabled=true"})
+    @ActiveProfiles("test")
+    class VirtualThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Test
+        void listCourses__requests_per_second() throws Exception {
+            measure("virtual threads", port);
+        }
+    }
+
+    private static void measure(String mode, int port) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/course/all?limit=50"))
+                .header("Accept", "application/json")
+                .build();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+            run(clients, http, request, WARMUP_REQUESTS_PER_CLIENT);
+
+            long start = System.nanoTime();
+            int failures = run(clients, http, request, REQUESTS_PER_CLIENT);
+            long elapsed = System.nanoTime() - start;
+
+            long requests = (long) CLIENTS * REQUESTS_PER_CLIENT;
+            log.info("Load test ({}): {} requests from {} clients in {} ms ({} requests/s, {} failed)",
+                    mode, requests, CLIENTS, elapsed / 1_000_000, Math.round(requests / (elapsed / 1_000_000_000.0)), failures);
+
+            assertThat(failures).isZero();
+        }
+    }
+
+    private static int run(ExecutorService clients, HttpClient http, HttpRequest request, int requestsPerClient)
+            throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> running = new ArrayList<>(CLIENTS);
+        for (int client = 0; client < CLIENTS; client++) {
+            running.add(clients.submit(() -> {
+                for (int i = 0; i < requestsPerClient; i++) {
+                    HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        failures.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> client : running) {
+            client.get();
+        }
+        return failures.get();
+    }
+}
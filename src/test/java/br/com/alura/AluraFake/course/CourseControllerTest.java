@@ -4,24 +4,46 @@ import br.com.alura.AluraFake.task.Task;
 import br.com.alura.AluraFake.task.TaskOption;
 import br.com.alura.AluraFake.task.TaskRepository;
 import br.com.alura.AluraFake.task.Type;
+import br.com.alura.AluraFake.task.dto.TaskListRow;
 import br.com.alura.AluraFake.user.*;
+import br.com.alura.AluraFake.util.KeysetPage;
+import br.com.alura.AluraFake.util.NdjsonQueryStreamer;
+import br.com.alura.AluraFake.util.OptimisticRetry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
+import static br.com.alura.AluraFake.util.QueryCounts.assertRepositoryInvocations;
+import static org.hamcrest.Matchers.endsWith;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(CourseController.class)
+@Import(OptimisticRetry.class)
 class CourseControllerTest {
 
     @Autowired
@@ -32,8 +54,18 @@ class CourseControllerTest {
     private CourseRepository courseRepository;
     @MockBean
     private TaskRepository taskRepository;
+    @MockBean
+    private NdjsonQueryStreamer ndjsonQueryStreamer;
+    @SpyBean
+    private CourseTaskListCache courseTaskListCache;
+    @SpyBean
+    private UserEmailCache userEmailCache;
+    @MockBean
+    private PlatformTransactionManager transactionManager;
     @Autowired
     private ObjectMapper objectMapper;
+    @Value("${spring.mvc.async.request-timeout}")
+    private Duration asyncRequestTimeout;
 
     private static final String COURSE_PUBLISH_ENDPOINT = "/course/{id}/publish";
     private static final String COURSE_TASKS_ENDPOINT = "/course/{id}/tasks";
@@ -49,6 +81,9 @@ class CourseControllerTest {
 
     @BeforeEach
     void setup() {
+        courseTaskListCache.clear();
+        userEmailCache.clear();
+
         String title = "Java";
         String description = "Curso de Java";
         String emailInstructor = "paulo@alura.com.br";
@@ -108,8 +143,7 @@ class CourseControllerTest {
         newCourseDTO.setDescription("Curso de Java");
         newCourseDTO.setEmailInstructor("paulo@alura.com.br");
 
-        User user = mock(User.class);
-        doReturn(false).when(user).isInstructor();
+        User user = new User("Paulo", "paulo@alura.com.br", Role.STUDENT);
 
         doReturn(Optional.of(user)).when(userRepository)
                 .findByEmail(newCourseDTO.getEmailInstructor());
@@ -130,8 +164,7 @@ class CourseControllerTest {
         newCourseDTO.setDescription("Curso de Java");
         newCourseDTO.setEmailInstructor("paulo@alura.com.br");
 
-        User user = mock(User.class);
-        doReturn(true).when(user).isInstructor();
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(newCourseDTO.getEmailInstructor());
 
@@ -144,24 +177,104 @@ class CourseControllerTest {
     }
 
     @Test
-    void listAllCourses__should_list_all_courses() throws Exception {
-        User paulo = new User("Paulo", "paulo@alua.com.br", Role.INSTRUCTOR);
+    void newCourseDTO__should_look_up_instructor_once_for_consecutive_courses() throws Exception {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        doReturn(Optional.of(user)).when(userRepository).findByEmail("paulo@alura.com.br");
+
+        mockMvc.perform(post("/course/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sampleNewCourseDTO)))
+                .andExpect(status().isCreated());
+
+        sampleNewCourseDTO.setEmailInstructor("Paulo@Alura.com.br");
+        mockMvc.perform(post("/course/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sampleNewCourseDTO)))
+                .andExpect(status().isCreated());
 
-        Course java = new Course("Java", "Curso de java", paulo);
-        Course hibernate = new Course("Hibernate", "Curso de hibernate", paulo);
-        Course spring = new Course("Spring", "Curso de spring", paulo);
+        verify(userRepository, times(1)).findByEmail(anyString());
+        verify(courseRepository, times(2)).save(any(Course.class));
+    }
 
-        when(courseRepository.findAll()).thenReturn(Arrays.asList(java, hibernate, spring));
+    @Test
+    void listAllCourses__should_list_all_courses() throws Exception {
+        when(courseRepository.findListItemsAfter(0L, Limit.of(KeysetPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(
+                new CourseListItemDTO(1L, "Java", "Curso de java", Status.BUILDING),
+                new CourseListItemDTO(2L, "Hibernate", "Curso de hibernate", Status.BUILDING),
+                new CourseListItemDTO(3L, "Spring", "Curso de spring", Status.PUBLISHED)
+        ));
 
         mockMvc.perform(get("/course/all")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$[0].title").value("Java"))
                 .andExpect(jsonPath("$[0].description").value("Curso de java"))
                 .andExpect(jsonPath("$[1].title").value("Hibernate"))
                 .andExpect(jsonPath("$[1].description").value("Curso de hibernate"))
                 .andExpect(jsonPath("$[2].title").value("Spring"))
                 .andExpect(jsonPath("$[2].description").value("Curso de spring"));
+
+        verify(courseRepository, never()).findAll();
+    }
+
+    @Test
+    void listAllCourses__should_return_next_cursor_when_more_courses_exist() throws Exception {
+        when(courseRepository.findListItemsAfter(10L, Limit.of(3))).thenReturn(List.of(
+                new CourseListItemDTO(11L, "Java", "Curso de java", Status.BUILDING),
+                new CourseListItemDTO(12L, "Hibernate", "Curso de hibernate", Status.BUILDING),
+                new CourseListItemDTO(13L, "Spring", "Curso de spring", Status.BUILDING)
+        ));
+
+        mockMvc.perform(get("/course/all")
+                        .param("limit", "2")
+                        .param("after", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "12"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value(12));
+    }
+
+    @Test
+    void listAllCourses__should_return_bad_request_when_limit_out_of_range() throws Exception {
+        for (String limit : List.of("0", String.valueOf(KeysetPage.MAX_LIMIT + 1))) {
+            mockMvc.perform(get("/course/all")
+                            .param("limit", limit))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.field").value("limit"));
+        }
+
+        verify(courseRepository, never()).findListItemsAfter(anyLong(), any());
+    }
+
+    @Test
+    void listAllCourses__should_stream_ndjson_when_requested() throws Exception {
+        StreamingResponseBody body = out -> out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+        when(ndjsonQueryStreamer.stream(anyString(), any())).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(get("/course/all")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+
+        verify(courseRepository, never()).findListItemsAfter(anyLong(), any());
+    }
+
+    @Test
+    void listAllCourses__should_stream_with_configured_async_timeout() throws Exception {
+        when(ndjsonQueryStreamer.stream(anyString(), any())).thenReturn(out -> {});
+
+        MvcResult result = mockMvc.perform(get("/course/all")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(asyncRequestTimeout.toMillis(), result.getRequest().getAsyncContext().getTimeout());
     }
 
     @Test
@@ -178,7 +291,7 @@ class CourseControllerTest {
     @Test
     void listCourseTasks__should_return_ordered_tasks() throws Exception {
         when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-        when(taskRepository.findByCourseIdOrderByOrderIndexAsc(1L)).thenReturn(sampleTasks);
+        when(taskRepository.findListRowsByCourseId(1L)).thenReturn(rowsOf(sampleTasks));
 
         mockMvc.perform(get(COURSE_TASKS_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -190,15 +303,104 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$[3].order").value(4));
 
         verify(courseRepository, times(1)).findById(1L);
-        verify(taskRepository, times(1)).findByCourseIdOrderByOrderIndexAsc(1L);
+        verify(taskRepository, times(1)).findListRowsByCourseId(1L);
     }
 
     @Test
-    void publishCourse__should_return_bad_request_when_tasks_missing() throws Exception {
-        sampleTasks = List.of();
+    void listCourseTasks__should_group_option_rows_under_their_task() throws Exception {
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+        when(taskRepository.findListRowsByCourseId(1L)).thenReturn(rowsOf(sampleTasks));
+
+        mockMvc.perform(get(COURSE_TASKS_ENDPOINT, 1L)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].type").value("OPEN_TEXT"))
+                .andExpect(jsonPath("$[0].options").doesNotExist())
+                .andExpect(jsonPath("$[1].options.length()").value(2))
+                .andExpect(jsonPath("$[1].options[0].option").value("Java"))
+                .andExpect(jsonPath("$[1].options[0].isCorrect").value(true))
+                .andExpect(jsonPath("$[2].options.length()").value(3))
+                .andExpect(jsonPath("$[3].options[2].option").value("FORTRAN"));
+
+        verify(taskRepository, never()).findByCourseIdOrderByRankKeyAsc(anyLong());
+        assertRepositoryInvocations(2, courseRepository, taskRepository, userRepository);
+    }
+
+    @Test
+    void listCourseTasks__should_serve_repeated_requests_from_cache() throws Exception {
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+        when(taskRepository.findListRowsByCourseId(1L)).thenReturn(rowsOf(sampleTasks));
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get(COURSE_TASKS_ENDPOINT, 1L))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(4));
+        }
 
+        verify(courseRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findListRowsByCourseId(1L);
+    }
+
+    @Test
+    void listCourseTasks__should_reload_after_eviction() throws Exception {
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+        when(taskRepository.findListRowsByCourseId(1L))
+                .thenReturn(rowsOf(sampleTasks.subList(0, 1)))
+                .thenReturn(rowsOf(sampleTasks));
+
+        mockMvc.perform(get(COURSE_TASKS_ENDPOINT, 1L))
+                .andExpect(jsonPath("$.length()").value(1));
+
+        courseTaskListCache.evict(1L);
+
+        mockMvc.perform(get(COURSE_TASKS_ENDPOINT, 1L))
+                .andExpect(jsonPath("$.length()").value(4));
+    }
+
+    @Test
+    void listCourseTasks__should_return_not_modified_from_cache_when_etag_matches() throws Exception {
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+        when(taskRepository.findListRowsByCourseId(1L)).thenReturn(rowsOf(sampleTasks));
+
+        String etag = mockMvc.perform(get(COURSE_TASKS_ENDPOINT, 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(COURSE_TASKS_ENDPOINT, 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(courseRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findListRowsByCourseId(1L);
+    }
+
+    @Test
+    void listCourseTasks__should_return_gzip_payload_for_published_course_when_accepted() throws Exception {
+        sampleCourse.setStatus(Status.PUBLISHED);
         when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-        when(taskRepository.findByCourseIdOrderByOrderIndexAsc(1L)).thenReturn(sampleTasks);
+        when(taskRepository.findListRowsByCourseId(1L)).thenReturn(rowsOf(sampleTasks));
+
+        byte[] json = mockMvc.perform(get(COURSE_TASKS_ENDPOINT, 1L))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        MockHttpServletResponse gzipped = mockMvc.perform(get(COURSE_TASKS_ENDPOINT, 1L)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-gzip\"")))
+                .andReturn().getResponse();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(json, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void publishCourse__should_return_bad_request_when_tasks_missing() throws Exception {
+        when(courseRepository.findPublishSummary(1L)).thenReturn(Optional.of(summary(Status.BUILDING, 0, 0)));
 
         mockMvc.perform(post(COURSE_PUBLISH_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -206,15 +408,12 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$.field").value("tasks"))
                 .andExpect(jsonPath("$.message").value("No tasks are present"));
 
-        verify(courseRepository, times(0)).save(any(Course.class));
+        verify(courseRepository, times(0)).publish(anyLong(), any(), any());
     }
 
     @Test
     void publishCourse__should_return_bad_request_when_under_1_task_of_each_type() throws Exception {
-        sampleTasks = List.of(sampleOpenTextTask, sampleMultipleChoiceTask, sampleMultipleChoiceTask2);
-
-        when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-        when(taskRepository.findByCourseIdOrderByOrderIndexAsc(1L)).thenReturn(sampleTasks);
+        when(courseRepository.findPublishSummary(1L)).thenReturn(Optional.of(summary(Status.BUILDING, 3, 2)));
 
         mockMvc.perform(post(COURSE_PUBLISH_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -222,15 +421,12 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$.field").value("tasks"))
                 .andExpect(jsonPath("$.message").value("At least 1 task of each type is required"));
 
-        verify(courseRepository, times(0)).save(any(Course.class));
+        verify(courseRepository, times(0)).publish(anyLong(), any(), any());
     }
 
     @Test
     void publishCourse__should_return_bad_request_when_under_3_tasks() throws Exception {
-        sampleTasks = List.of(sampleOpenTextTask, sampleMultipleChoiceTask);
-
-        when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-        when(taskRepository.findByCourseIdOrderByOrderIndexAsc(1L)).thenReturn(sampleTasks);
+        when(courseRepository.findPublishSummary(1L)).thenReturn(Optional.of(summary(Status.BUILDING, 2, 2)));
 
         mockMvc.perform(post(COURSE_PUBLISH_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -238,53 +434,38 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$.field").value("tasks"))
                 .andExpect(jsonPath("$.message").value("At least 3 tasks are required"));
 
-        verify(courseRepository, times(0)).save(any(Course.class));
+        verify(courseRepository, times(0)).publish(anyLong(), any(), any());
     }
 
     @Test
     void publishCourse__should_create_when_1_task_of_each_type() throws Exception {
-        sampleTasks = List.of(
-                sampleOpenTextTask,
-                sampleSingleChoiceTask,
-                sampleMultipleChoiceTask,
-                sampleMultipleChoiceTask2
-        );
-
-        when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-        when(taskRepository.findByCourseIdOrderByOrderIndexAsc(1L)).thenReturn(sampleTasks);
+        when(courseRepository.findPublishSummary(1L)).thenReturn(Optional.of(summary(Status.BUILDING, 4, 3)));
+        when(courseRepository.publish(eq(1L), eq(0L), any(LocalDateTime.class))).thenReturn(1);
 
         mockMvc.perform(post(COURSE_PUBLISH_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
 
-        verify(courseRepository, times(1)).save(any(Course.class));
+        verify(courseRepository, times(1)).publish(eq(1L), eq(0L), any(LocalDateTime.class));
     }
 
     @Test
-    void publishCourse__should_return_bad_request_when_order_not_consecutive() throws Exception {
-        sampleOpenTextTask.setOrderIndex(1);
-        sampleSingleChoiceTask.setOrderIndex(2);
-        sampleMultipleChoiceTask.setOrderIndex(4);
-        sampleMultipleChoiceTask2.setOrderIndex(5);
-
-        when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-        when(taskRepository.findByCourseIdOrderByOrderIndexAsc(1L)).thenReturn(sampleTasks);
+    void publishCourse__should_return_conflict_when_course_version_keeps_changing() throws Exception {
+        when(courseRepository.findPublishSummary(1L)).thenReturn(Optional.of(summary(Status.BUILDING, 4, 3)));
+        when(courseRepository.publish(eq(1L), eq(0L), any(LocalDateTime.class))).thenReturn(0);
 
         mockMvc.perform(post(COURSE_PUBLISH_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$.field").value("order"))
-                .andExpect(jsonPath("$.message").value("Order is not consecutive"));
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.field").value("id"));
 
-        verify(courseRepository, times(0)).save(any(Course.class));
+        verify(courseRepository, times(3)).findPublishSummary(1L);
+        verify(courseTaskListCache, never()).evict(anyLong());
     }
 
     @Test
     void publishCourse__should_return_bad_request_when_status_published() throws Exception {
-        sampleCourse.setStatus(Status.PUBLISHED);
-
-        when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-        when(taskRepository.findByCourseIdOrderByOrderIndexAsc(1L)).thenReturn(sampleTasks);
+        when(courseRepository.findPublishSummary(1L)).thenReturn(Optional.of(summary(Status.PUBLISHED, 4, 3)));
 
         mockMvc.perform(post(COURSE_PUBLISH_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -292,35 +473,77 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$.field").value("status"))
                 .andExpect(jsonPath("$.message").value("Status is not BUILDING"));
 
-        verify(courseRepository, times(0)).save(any(Course.class));
+        verify(courseRepository, times(0)).publish(anyLong(), any(), any());
     }
 
     @Test
     void publishCourse__should_return_not_found_when_course_missing() throws Exception {
-        when(courseRepository.findById(1L)).thenReturn(Optional.empty());
+        when(courseRepository.findPublishSummary(1L)).thenReturn(Optional.empty());
 
         mockMvc.perform(post(COURSE_PUBLISH_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
 
-        verify(courseRepository, times(0)).save(any(Course.class));
+        verify(courseRepository, times(0)).publish(anyLong(), any(), any());
     }
 
     @Test
-    void publishCourse__should_update_status_and_publishedAt_when_valid() throws Exception {
-        when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-        when(taskRepository.findByCourseIdOrderByOrderIndexAsc(1L)).thenReturn(sampleTasks);
-
-        assertEquals(Status.BUILDING, sampleCourse.getStatus());
-        assertNull(sampleCourse.getPublishedAt());
+    void publishCourse__should_publish_without_loading_tasks_when_valid() throws Exception {
+        when(courseRepository.findPublishSummary(1L)).thenReturn(Optional.of(summary(Status.BUILDING, 4, 3)));
+        when(courseRepository.publish(eq(1L), eq(0L), any(LocalDateTime.class))).thenReturn(1);
 
+        LocalDateTime before = LocalDateTime.now();
         mockMvc.perform(post(COURSE_PUBLISH_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
 
-        assertEquals(Status.PUBLISHED, sampleCourse.getStatus());
-        assertNotNull(sampleCourse.getPublishedAt());
+        ArgumentCaptor<LocalDateTime> publishedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(courseRepository, times(1)).publish(eq(1L), eq(0L), publishedAt.capture());
+        assertFalse(publishedAt.getValue().isBefore(before));
 
-        verify(courseRepository, times(1)).save(any(Course.class));
+        verify(courseRepository, never()).findById(anyLong());
+        verifyNoInteractions(taskRepository);
+        verify(courseTaskListCache, times(1)).evict(1L);
+        assertRepositoryInvocations(2, courseRepository, taskRepository, userRepository);
+    }
+
+    private static CoursePublishSummary summary(Status status, long taskCount, long typeCount) {
+        return new CoursePublishSummary() {
+            @Override
+            public Status getStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getVersion() {
+                return 0L;
+            }
+
+            @Override
+            public Long getTaskCount() {
+                return taskCount;
+            }
+
+            @Override
+            public Long getTypeCount() {
+                return typeCount;
+            }
+        };
+    }
+
+    private static List<TaskListRow> rowsOf(List<Task> tasks) {
+        List<TaskListRow> rows = new ArrayList<>();
+        long optionId = 1;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            long taskId = i + 1;
+            if (task.getOptions().isEmpty()) {
+                rows.add(new TaskListRow(taskId, task.getStatement(), task.getType(), null, null, null));
+            }
+            for (TaskOption option : task.getOptions()) {
+                rows.add(new TaskListRow(taskId, task.getStatement(), task.getType(), optionId++, option.getOptionText(), option.isCorrect()));
+            }
+        }
+        return rows;
     }
 }
@@ -0,0 +1,151 @@
+package br.com.alura.AluraFake.course;
+
+import br.com.alura.AluraFake.task.Task;
+import br.com.alura.AluraFake.task.TaskRepository;
+import br.com.alura.AluraFake.task.Type;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static br.com.alura.AluraFake.util.QueryCounts.assertStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class CourseRepositoryTest {
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void findPublishSummary__should_count_tasks_and_distinct_types() {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+
+        Course course = new Course("Java", "Curso de Java", user);
+        Course emptyCourse = new Course("Python", "Curso de Python", user);
+        courseRepository.save(course);
+        courseRepository.save(emptyCourse);
+
+        taskRepository.save(new Task(course, "Java Task 1", 1, Type.OPEN_TEXT));
+        taskRepository.save(new Task(course, "Java Task 2", 2, Type.OPEN_TEXT));
+        taskRepository.save(new Task(course, "Java Task 3", 3, Type.SINGLE_CHOICE));
+        entityManager.flush();
+
+        CoursePublishSummary summary = courseRepository.findPublishSummary(course.getId()).orElseThrow();
+        assertThat(summary.getStatus()).isEqualTo(Status.BUILDING);
+        assertThat(summary.getVersion()).isEqualTo(course.getVersion());
+        assertThat(summary.getTaskCount()).isEqualTo(3);
+        assertThat(summary.getTypeCount()).isEqualTo(2);
+
+        CoursePublishSummary emptySummary = courseRepository.findPublishSummary(emptyCourse.getId()).orElseThrow();
+        assertThat(emptySummary.getTaskCount()).isZero();
+        assertThat(emptySummary.getTypeCount()).isZero();
+
+        assertThat(courseRepository.findPublishSummary(-1L)).isEmpty();
+    }
+
+    @Test
+    void incrementVersion__should_only_bump_course_at_the_read_version() {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+
+        Course course = new Course("Java", "Curso de Java", user);
+        courseRepository.save(course);
+        entityManager.flush();
+
+        Long version = course.getVersion();
+        assertThat(courseRepository.incrementVersion(course.getId(), version)).isEqualTo(1);
+        assertThat(courseRepository.incrementVersion(course.getId(), version)).isZero();
+        entityManager.clear();
+
+        assertThat(courseRepository.findById(course.getId()).orElseThrow().getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void publish__should_only_publish_courses_in_building_status_at_the_read_version() {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+
+        Course course = new Course("Java", "Curso de Java", user);
+        courseRepository.save(course);
+        entityManager.flush();
+
+        Long version = course.getVersion();
+        LocalDateTime publishedAt = LocalDateTime.of(2024, 5, 10, 9, 30);
+        assertThat(courseRepository.publish(course.getId(), version + 1, publishedAt)).isZero();
+        assertThat(courseRepository.publish(course.getId(), version, publishedAt)).isEqualTo(1);
+        assertThat(courseRepository.publish(course.getId(), version + 1, publishedAt.plusDays(1))).isZero();
+        entityManager.clear();
+
+        Optional<Course> published = courseRepository.findById(course.getId());
+        assertThat(published).isPresent();
+        assertThat(published.get().getStatus()).isEqualTo(Status.PUBLISHED);
+        assertThat(published.get().getPublishedAt()).isEqualTo(publishedAt);
+        assertThat(published.get().getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void findDetailsByInstructorId__should_return_instructor_courses_with_task_counts_in_a_single_statement() throws Throwable {
+        User instructor = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        User otherInstructor = new User("Ana", "ana@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(instructor);
+        userRepository.save(otherInstructor);
+
+        Course java = new Course("Java", "Curso de Java", instructor);
+        Course python = new Course("Python", "Curso de Python", instructor);
+        Course ruby = new Course("Ruby", "Curso de Ruby", otherInstructor);
+        courseRepository.save(java);
+        courseRepository.save(python);
+        courseRepository.save(ruby);
+
+        taskRepository.save(new Task(java, "Java Task 1", 1, Type.OPEN_TEXT));
+        taskRepository.save(new Task(java, "Java Task 2", 2, Type.OPEN_TEXT));
+        taskRepository.save(new Task(ruby, "Ruby Task 1", 1, Type.OPEN_TEXT));
+        entityManager.flush();
+
+        entityManager.clear();
+
+        List<CourseDetailListItemDTO> details = assertStatements(1,
+                () -> courseRepository.findDetailsByInstructorId((Long) entityManager.getId(instructor)));
+
+        assertThat(details).extracting(CourseDetailListItemDTO::getTitle).containsExactly("Java", "Python");
+        assertThat(details).extracting(CourseDetailListItemDTO::getTotalCourseTasks).containsExactly(2, 0);
+        assertThat(details.getFirst().getStatus()).isEqualTo(Status.BUILDING);
+    }
+
+    @Test
+    void findListItemsAfter__should_return_next_page_by_id() {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+
+        Course java = courseRepository.save(new Course("Java", "Curso de Java", user));
+        Course python = courseRepository.save(new Course("Python", "Curso de Python", user));
+        Course ruby = courseRepository.save(new Course("Ruby", "Curso de Ruby", user));
+
+        List<CourseListItemDTO> firstPage = courseRepository.findListItemsAfter(java.getId() - 1, Limit.of(2));
+        assertThat(firstPage).extracting(CourseListItemDTO::getTitle).containsExactly("Java", "Python");
+
+        List<CourseListItemDTO> secondPage = courseRepository.findListItemsAfter(python.getId(), Limit.of(2));
+        assertThat(secondPage).extracting(CourseListItemDTO::getId).containsExactly(ruby.getId());
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.alura.AluraFake.course;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseTaskListCacheTest {
+
+    private CourseTaskListCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        cache = new CourseTaskListCache(new ObjectMapper(), DataSize.ofKilobytes(1), Duration.ofMinutes(1), Duration.ofHours(24), Runnable::run);
+        loads = new AtomicInteger();
+    }
+
+    private CourseTaskListCache.Listing load(Long courseId) {
+        loads.incrementAndGet();
+        return cache.listing(Status.BUILDING, List.of());
+    }
+
+    @Test
+    void get__should_load_once_and_serve_from_cache() {
+        CourseTaskListCache.Listing first = cache.get(1L, this::load);
+        CourseTaskListCache.Listing second = cache.get(1L, this::load);
+
+        assertSame(first, second);
+        assertEquals("[]", new String(first.json()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get__should_not_cache_missing_course() {
+        assertNull(cache.get(1L, id -> null));
+        assertNotNull(cache.get(1L, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evict__should_wait_for_commit_inside_transaction() {
+        cache.get(1L, this::load);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict(1L);
+            cache.get(1L, this::load);
+            assertEquals(1, loads.get());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        cache.get(1L, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void bindTo__should_expose_hit_and_miss_counts() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "courseTaskList").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "courseTaskList").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void get__should_keep_payload_bytes_within_budget() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        CourseTaskListCache.Listing listing = new CourseTaskListCache.Listing(Status.PUBLISHED, new byte[300], new byte[50], "\"1\"");
+
+        cache.get(1L, id -> listing);
+        assertEquals(350.0, registry.get("cache.weight").tag("cache", "courseTaskList").gauge().value());
+
+        for (long courseId = 2; courseId <= 5; courseId++) {
+            cache.get(courseId, id -> listing);
+        }
+        assertTrue(registry.get("cache.weight").tag("cache", "courseTaskList").gauge().value() <= 1024);
+    }
+}
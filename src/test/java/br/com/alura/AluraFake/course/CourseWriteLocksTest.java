@@ -0,0 +1,97 @@
+package br.com.alura.AluraFake.course;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseWriteLocksTest {
+
+    private SimpleMeterRegistry registry;
+    private CourseWriteLocks locks;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        locks = new CourseWriteLocks(registry, 16, Duration.ofMillis(100));
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    private Future<?> holdLock(Long courseId, CountDownLatch held, CountDownLatch release) {
+        return executor.submit(() -> locks.tryWithLock(courseId, () -> {
+            held.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+    }
+
+    @Test
+    void tryWithLock__should_run_write_and_return_its_result() {
+        assertEquals(Optional.of("done"), locks.tryWithLock(1L, () -> "done"));
+        assertEquals(1, registry.get("course.write.lock.wait").timer().count());
+    }
+
+    @Test
+    void tryWithLock__should_return_empty_and_count_timeout_when_course_is_locked() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = holdLock(1L, held, release);
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        try {
+            assertEquals(Optional.empty(), locks.tryWithLock(1L, () -> fail("write must not run without the lock")));
+            assertEquals(1.0, registry.get("course.write.lock.timeouts").counter().count());
+        } finally {
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+
+        assertEquals(Optional.of(true), locks.tryWithLock(1L, () -> true));
+    }
+
+    @Test
+    void tryWithLock__should_not_block_course_on_another_stripe() throws Exception {
+        long other = 2L;
+        while (locks.stripeOf(other) == locks.stripeOf(1L)) {
+            other++;
+        }
+
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = holdLock(1L, held, release);
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        try {
+            assertEquals(Optional.of(true), locks.tryWithLock(other, () -> true));
+            assertEquals(0.0, registry.get("course.write.lock.timeouts").counter().count());
+        } finally {
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void stripeOf__should_spread_consecutive_ids() {
+        assertNotEquals(locks.stripeOf(1L), locks.stripeOf(2L));
+        for (long id = 1; id <= 1000; id++) {
+            int stripe = locks.stripeOf(id);
+            assertTrue(stripe >= 0 && stripe < 16);
+        }
+    }
+}
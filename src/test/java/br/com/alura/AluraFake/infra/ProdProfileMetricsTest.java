@@ -0,0 +1,75 @@
+package br.com.alura.AluraFake.infra;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The prod profile on top of the test datasource. {@code spring.profiles.active} is set explicitly,
+ * or {@code DataSeeder} would read {@code dev} from application.properties and seed the test database.
+ */
+@SpringBootTest(properties = "spring.profiles.active=prod,test")
+@ActiveProfiles({"prod", "test"})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class ProdProfileMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void prodProfile__should_use_fixed_size_pool() {
+        HikariDataSource hikari = assertInstanceOf(HikariDataSource.class, dataSource);
+        assertEquals(20, hikari.getMaximumPoolSize());
+        assertEquals(20, hikari.getMinimumIdle());
+        assertEquals(2000, hikari.getConnectionTimeout());
+    }
+
+    @Test
+    void prometheus__should_expose_pool_gauges_and_acquire_histogram() throws Exception {
+        mockMvc.perform(get("/course/all"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("hikaricp_connections_active{")))
+                .andExpect(content().string(containsString("hikaricp_connections_idle{")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending{")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket{")))
+                .andExpect(content().string(containsString("hikaricp_connections_usage_seconds_bucket{")));
+    }
+
+    @Test
+    void prometheus__should_expose_sql_statements_per_request() throws Exception {
+        mockMvc.perform(get("/course/all"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_sql_sum{method=\"GET\",uri=\"/course/all\"} ")));
+    }
+
+    @Test
+    void prometheus__should_expose_task_creation_stage_percentiles() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "task_creation_stage_seconds{stage=\"save\",type=\"MULTIPLE_CHOICE\",quantile=\"0.999\"}")));
+    }
+}
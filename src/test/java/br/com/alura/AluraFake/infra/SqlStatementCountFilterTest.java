@@ -0,0 +1,60 @@
+package br.com.alura.AluraFake.infra;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementCountFilterTest {
+
+    private SimpleMeterRegistry registry;
+    private SqlStatementCountFilter filter;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        filter = new SqlStatementCountFilter(registry, 3);
+        request = new MockHttpServletRequest("GET", "/course/1/tasks");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/course/{id}/tasks");
+    }
+
+    private FilterChain runningStatements(int statements) {
+        SqlStatementCounter inspector = new SqlStatementCounter();
+        return (req, res) -> {
+            for (int i = 0; i < statements; i++) {
+                inspector.inspect("select 1");
+            }
+        };
+    }
+
+    @Test
+    void doFilter__should_record_statements_per_route() throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), runningStatements(2));
+
+        var summary = registry.get("http.server.requests.sql").tag("uri", "/course/{id}/tasks").summary();
+        assertEquals(1, summary.count());
+        assertEquals(2.0, summary.totalAmount());
+        assertTrue(registry.find("http.server.requests.sql.exceeded").counters().isEmpty());
+    }
+
+    @Test
+    void doFilter__should_count_requests_over_threshold() throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), runningStatements(4));
+
+        assertEquals(1.0, registry.get("http.server.requests.sql.exceeded").tag("uri", "/course/{id}/tasks").counter().count());
+    }
+
+    @Test
+    void doFilter__should_close_count_after_request() throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), runningStatements(2));
+
+        new SqlStatementCounter().inspect("select 1");
+        assertEquals(0, SqlStatementCounter.stop());
+    }
+}
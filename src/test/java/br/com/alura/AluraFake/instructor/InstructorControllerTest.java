@@ -1,7 +1,6 @@
 package br.com.alura.AluraFake.instructor;
 
 import br.com.alura.AluraFake.course.*;
-import br.com.alura.AluraFake.task.TaskRepository;
 import br.com.alura.AluraFake.user.Role;
 import br.com.alura.AluraFake.user.User;
 import br.com.alura.AluraFake.user.UserRepository;
@@ -18,6 +17,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import static br.com.alura.AluraFake.util.QueryCounts.assertRepositoryInvocations;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -31,8 +31,6 @@ class InstructorControllerTest {
     private UserRepository userRepository;
     @MockBean
     private CourseRepository courseRepository;
-    @MockBean
-    private TaskRepository taskRepository;
 
     private static final String INSTRUCTOR_COURSES_ENDPOINT = "/instructor/{userId}/courses";
 
@@ -110,7 +108,7 @@ class InstructorControllerTest {
     @Test
     void instructorCourses__should_return_empty_list_when_courses_missing() throws Exception {
         when(userRepository.findById(1L)).thenReturn(Optional.of(sampleUser));
-        when(courseRepository.findByInstructorId(1L)).thenReturn(List.of());
+        when(courseRepository.findDetailsByInstructorId(1L)).thenReturn(List.of());
 
         mockMvc.perform(get(INSTRUCTOR_COURSES_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -122,12 +120,7 @@ class InstructorControllerTest {
     @Test
     void instructorCourses__should_list_courses_from_instructor() throws Exception {
         when(userRepository.findById(1L)).thenReturn(Optional.of(sampleUser));
-        when(courseRepository.findByInstructorId(1L)).thenReturn(sampleCourses);
-        when(courseRepository.countByInstructorId(1L)).thenReturn(sampleCourses.size());
-
-        when(taskRepository.countByCourseId(1L)).thenReturn(sampleDto0.getTotalCourseTasks());
-        when(taskRepository.countByCourseId(2L)).thenReturn(sampleDto1.getTotalCourseTasks());
-        when(taskRepository.countByCourseId(3L)).thenReturn(sampleDto2.getTotalCourseTasks());
+        when(courseRepository.findDetailsByInstructorId(1L)).thenReturn(List.of(sampleDto0, sampleDto1, sampleDto2));
 
         mockMvc.perform(get(INSTRUCTOR_COURSES_ENDPOINT, 1L)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -149,6 +142,10 @@ class InstructorControllerTest {
                 .andExpect(jsonPath("$.coursesDetail[2].description").value("Curso de Ruby"))
                 .andExpect(jsonPath("$.coursesDetail[2].status").value("BUILDING"))
                 .andExpect(jsonPath("$.coursesDetail[2].totalCourseTasks").value(8));
+
+        verify(courseRepository, times(1)).findDetailsByInstructorId(1L);
+        verifyNoMoreInteractions(courseRepository);
+        assertRepositoryInvocations(2, userRepository, courseRepository);
     }
 }
 
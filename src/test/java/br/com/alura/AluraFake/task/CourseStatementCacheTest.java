@@ -0,0 +1,93 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.course.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseStatementCacheTest {
+
+    private CourseStatementCache cache;
+    private TaskCreationState read;
+    private TaskCreationState loaded;
+    private AtomicInteger loads;
+    private byte[] hash;
+
+    @BeforeEach
+    void setup() {
+        loads = new AtomicInteger();
+        hash = Task.hashStatement("O que aprendemos hoje?");
+        loaded = new TaskCreationState(Status.BUILDING, 9L, Set.of(ByteBuffer.wrap(hash)));
+        cache = new CourseStatementCache(courseId -> {
+            loads.incrementAndGet();
+            return loaded;
+        }, Runnable::run, 100, Duration.ofMinutes(1));
+        read = new TaskCreationState(Status.BUILDING, 3L, Set.of());
+        cache.put(1L, read);
+    }
+
+    @Test
+    void recordInsert__should_advance_version_and_statements() {
+        cache.recordInsert(1L, read, hash);
+
+        TaskCreationState state = cache.getIfPresent(1L);
+        assertEquals(4L, state.courseVersion());
+        assertEquals(1, state.taskCount());
+        assertTrue(state.statementExists(Task.hashStatement("  o que APRENDEMOS hoje? ")));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void recordInsert__should_reload_entry_replaced_since_read() {
+        cache.put(1L, new TaskCreationState(Status.BUILDING, 5L, Set.of()));
+
+        cache.recordInsert(1L, read, hash);
+
+        assertSame(loaded, cache.getIfPresent(1L));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void recordInsert__should_load_course_checked_without_entry() {
+        cache.recordInsert(2L, null, hash);
+
+        assertSame(loaded, cache.getIfPresent(2L));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void recordInsert__should_wait_for_commit_inside_transaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.recordInsert(1L, read, hash);
+            assertSame(read, cache.getIfPresent(1L));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(4L, cache.getIfPresent(1L).courseVersion());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void put__should_bound_cache_by_statement_hashes() {
+        Set<ByteBuffer> hashes = IntStream.range(0, 100)
+                .mapToObj(i -> ByteBuffer.wrap(Task.hashStatement("Task " + i)))
+                .collect(Collectors.toSet());
+
+        cache.put(2L, new TaskCreationState(Status.BUILDING, 1L, hashes));
+
+        assertNull(cache.getIfPresent(2L));
+        assertSame(read, cache.getIfPresent(1L));
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.course.Course;
+import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import db.migration.V9__replaceTaskStatementIndexWithHash;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class StatementHashBackfillMigrationTest {
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void backfillStatementHashes__should_hash_like_java_and_keep_legacy_duplicates_apart() throws Exception {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+        Course course = new Course("Java", "Curso de Java", user);
+        courseRepository.save(course);
+
+        Task tabbed = taskRepository.save(new Task(course, "Java Task", 1, Type.OPEN_TEXT));
+        Task plain = taskRepository.save(new Task(course, "Python Task", 2, Type.OPEN_TEXT));
+        Task duplicate = taskRepository.save(new Task(course, "Python Task 2", 3, Type.OPEN_TEXT));
+        entityManager.flush();
+
+        // Rows as the old index allowed them, with hashes the backfill has to replace
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        legacy(connection, tabbed.getId(), "\tJava Task\n");
+        legacy(connection, plain.getId(), "Python Task");
+        legacy(connection, duplicate.getId(), "\nPython Task");
+
+        V9__replaceTaskStatementIndexWithHash.backfillStatementHashes(connection);
+
+        assertThat(hashOf(connection, tabbed.getId())).isEqualTo(Task.hashStatement("java task"));
+        assertThat(hashOf(connection, plain.getId())).isEqualTo(Task.hashStatement("Python Task"));
+        assertThat(hashOf(connection, duplicate.getId()))
+                .isEqualTo(MessageDigest.getInstance("SHA-256").digest("\nPython Task".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void legacy(Connection connection, Long taskId, String statement) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE Task SET statement = ?, statementHash = UNHEX(SHA2(CONCAT('stale', id), 256)) WHERE id = ?")) {
+            update.setString(1, statement);
+            update.setLong(2, taskId);
+            update.executeUpdate();
+        }
+    }
+
+    private static byte[] hashOf(Connection connection, Long taskId) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT statementHash FROM Task WHERE id = ?")) {
+            select.setLong(1, taskId);
+            try (ResultSet rs = select.executeQuery()) {
+                rs.next();
+                return rs.getBytes(1);
+            }
+        }
+    }
+}
@@ -3,7 +3,11 @@ package br.com.alura.AluraFake.task;
 import br.com.alura.AluraFake.task.dto.NewMultipleChoiceDTO;
 import br.com.alura.AluraFake.task.dto.NewOpenTextDTO;
 import br.com.alura.AluraFake.task.dto.NewSingleChoiceDTO;
+import br.com.alura.AluraFake.task.dto.NewTaskBatchDTO;
+import br.com.alura.AluraFake.task.dto.NewTaskBatchItemDTO;
 import br.com.alura.AluraFake.task.dto.OptionDTO;
+import br.com.alura.AluraFake.task.dto.TaskMoveDTO;
+import br.com.alura.AluraFake.task.dto.TaskOrderDTO;
 import br.com.alura.AluraFake.util.ErrorItemDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,8 +22,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -39,6 +45,8 @@ class TaskControllerTest {
     private static final String TASK_NEW_OPEN_TEXT_ENDPOINT = "/task/new/opentext";
     private static final String TASK_NEW_SINGLE_CHOICE_ENDPOINT = "/task/new/singlechoice";
     private static final String TASK_NEW_MULTIPLE_CHOICE_ENDPOINT = "/task/new/multiplechoice";
+    private static final String TASK_BATCH_ENDPOINT = "/course/{id}/tasks/batch";
+    private static final String TASK_ORDER_ENDPOINT = "/course/{id}/tasks/order";
 
     private NewOpenTextDTO sampleOpenTextDTO;
     private NewSingleChoiceDTO sampleSingleChoiceDTO;
@@ -304,4 +312,78 @@ class TaskControllerTest {
 
         verify(taskService, times(1)).createNewTask(any(NewMultipleChoiceDTO.class), eq(Type.MULTIPLE_CHOICE));
     }
+
+    @Test
+    void newTaskBatch__should_return_bad_request_when_tasks_empty() throws Exception {
+        mockMvc.perform(post(TASK_BATCH_ENDPOINT, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new NewTaskBatchDTO(List.of()))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].field").value("tasks"));
+
+        verify(taskService, times(0)).createTasksBatch(anyLong(), any(NewTaskBatchDTO.class));
+    }
+
+    @Test
+    void newTaskBatch__should_return_bad_request_with_item_field_when_item_invalid() throws Exception {
+        NewTaskBatchDTO batch = new NewTaskBatchDTO(List.of(
+                new NewTaskBatchItemDTO(Type.OPEN_TEXT, "O que aprendemos hoje?", 1, null),
+                new NewTaskBatchItemDTO(Type.OPEN_TEXT, "abc", 2, null)
+        ));
+
+        mockMvc.perform(post(TASK_BATCH_ENDPOINT, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].field").value("tasks[1].statement"));
+
+        verify(taskService, times(0)).createTasksBatch(anyLong(), any(NewTaskBatchDTO.class));
+    }
+
+    @Test
+    void newTaskBatch__should_create_when_valid() throws Exception {
+        NewTaskBatchDTO batch = new NewTaskBatchDTO(List.of(
+                new NewTaskBatchItemDTO(Type.OPEN_TEXT, "O que aprendemos hoje?", 1, null),
+                new NewTaskBatchItemDTO(Type.SINGLE_CHOICE, "Qual linguagem usamos?", 2, List.of(
+                        new OptionDTO("Java", true),
+                        new OptionDTO("Python", false)
+                ))
+        ));
+
+        when(taskService.createTasksBatch(eq(1L), any(NewTaskBatchDTO.class)))
+                .thenReturn(ResponseEntity.status(201).build());
+
+        mockMvc.perform(post(TASK_BATCH_ENDPOINT, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isCreated());
+
+        verify(taskService, times(1)).createTasksBatch(eq(1L), any(NewTaskBatchDTO.class));
+    }
+
+    @Test
+    void reorderTasks__should_return_bad_request_with_move_field_when_move_invalid() throws Exception {
+        TaskOrderDTO dto = TaskOrderDTO.ofMoves(List.of(new TaskMoveDTO(10L, 0)));
+
+        mockMvc.perform(patch(TASK_ORDER_ENDPOINT, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].field").value("moves[0].order"));
+
+        verify(taskService, times(0)).reorderTasks(anyLong(), any(TaskOrderDTO.class));
+    }
+
+    @Test
+    void reorderTasks__should_return_ok_when_valid() throws Exception {
+        when(taskService.reorderTasks(eq(1L), any(TaskOrderDTO.class)))
+                .thenReturn(ResponseEntity.ok().build());
+
+        mockMvc.perform(patch(TASK_ORDER_ENDPOINT, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(TaskOrderDTO.ofTaskIds(List.of(12L, 10L, 11L)))))
+                .andExpect(status().isOk());
+
+        verify(taskService, times(1)).reorderTasks(eq(1L), any(TaskOrderDTO.class));
+    }
 }
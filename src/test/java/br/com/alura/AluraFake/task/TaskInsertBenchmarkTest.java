@@ -0,0 +1,96 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.course.Course;
+import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures Task + TaskOption insert throughput against the test database.
+ * Run with {@code mvn test -Dtest=TaskInsertBenchmarkTest -Dbenchmark=true}.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TaskInsertBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskInsertBenchmarkTest.class);
+
+    private static final int TASKS_PER_ROUND = 500;
+    private static final int OPTIONS_PER_TASK = 5;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void saveAll__inserts_per_second() {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            insertRound(user, "Warmup " + round);
+        }
+
+        long totalNanos = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            totalNanos += insertRound(user, "Round " + round);
+        }
+
+        long rows = (long) MEASURED_ROUNDS * TASKS_PER_ROUND * (1 + OPTIONS_PER_TASK);
+        double rowsPerSecond = rows / (totalNanos / 1_000_000_000.0);
+        log.info("Task insert benchmark: {} rows in {} ms ({} inserts/s)",
+                rows, totalNanos / 1_000_000, Math.round(rowsPerSecond));
+
+        assertThat(totalNanos).isPositive();
+
+        assertThat(taskRepository.count()).isGreaterThanOrEqualTo((long) MEASURED_ROUNDS * TASKS_PER_ROUND);
+    }
+
+    private long insertRound(User user, String title) {
+        Course course = new Course(title, "Benchmark course", user);
+        courseRepository.save(course);
+        entityManager.flush();
+
+        List<Task> tasks = new ArrayList<>(TASKS_PER_ROUND);
+        for (int i = 1; i <= TASKS_PER_ROUND; i++) {
+            Task task = new Task(course, "Benchmark task " + i, i, Type.MULTIPLE_CHOICE);
+            for (int j = 1; j <= OPTIONS_PER_TASK; j++) {
+                task.addOption(new TaskOption("Option " + j, j % 2 == 0));
+            }
+            tasks.add(task);
+        }
+
+        long start = System.nanoTime();
+        taskRepository.saveAll(tasks);
+        entityManager.flush();
+        long elapsed = System.nanoTime() - start;
+
+        entityManager.clear();
+        return elapsed;
+    }
+}
@@ -0,0 +1,51 @@
+package br.com.alura.AluraFake.task;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskRankTest {
+
+    @Test
+    void between__should_return_evenly_spaced_keys() {
+        assertArrayEquals(new long[]{25, 50, 75}, TaskRank.between(0, 100L, 3));
+    }
+
+    @Test
+    void between__should_append_one_gap_apart_when_after_is_null() {
+        assertArrayEquals(new long[]{10 + TaskRank.GAP, 10 + 2 * TaskRank.GAP}, TaskRank.between(10, null, 2));
+    }
+
+    @Test
+    void between__should_return_null_when_keys_do_not_fit() {
+        assertNull(TaskRank.between(7, 8L, 1));
+        assertNull(TaskRank.between(0, 3L, 3));
+    }
+
+    @Test
+    void fillGaps__should_fill_every_run_between_its_neighbours() {
+        Long[] keys = {null, 100L, null, null, 400L, null};
+
+        assertTrue(TaskRank.fillGaps(keys));
+        assertArrayEquals(new Long[]{50L, 100L, 200L, 300L, 400L, 400 + TaskRank.GAP}, keys);
+    }
+
+    @Test
+    void fillGaps__should_return_false_when_a_run_does_not_fit() {
+        assertFalse(TaskRank.fillGaps(new Long[]{1L, null, 2L}));
+    }
+
+    @Test
+    void longestIncreasingSubsequence__should_keep_tasks_already_in_relative_order() {
+        boolean[] kept = TaskRank.longestIncreasingSubsequence(new long[]{40, 10, 20, 30});
+
+        assertArrayEquals(new boolean[]{false, true, true, true}, kept);
+    }
+
+    @Test
+    void longestIncreasingSubsequence__should_keep_everything_when_already_sorted() {
+        boolean[] kept = TaskRank.longestIncreasingSubsequence(new long[]{10, 20, 30});
+
+        assertArrayEquals(new boolean[]{true, true, true}, kept);
+    }
+}
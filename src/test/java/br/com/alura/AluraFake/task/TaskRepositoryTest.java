@@ -2,17 +2,25 @@ package br.com.alura.AluraFake.task;
 
 import br.com.alura.AluraFake.course.Course;
 import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.course.Status;
+import br.com.alura.AluraFake.task.dto.OptionListItemDTO;
+import br.com.alura.AluraFake.task.dto.TaskListItemDTO;
 import br.com.alura.AluraFake.user.Role;
 import br.com.alura.AluraFake.user.User;
 import br.com.alura.AluraFake.user.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.List;
+import java.util.Map;
 
+import static br.com.alura.AluraFake.util.QueryCounts.assertStatements;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
 @ActiveProfiles("test")
@@ -27,99 +35,218 @@ class TaskRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
-    void existsByCourseAndStatement__should_return_true_when_statement_present_in_course() {
+    void save__should_reject_statement_differing_only_in_case_within_course() {
         User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
         userRepository.save(user);
 
         Course course = new Course("Java", "Curso de Java", user);
+        Course otherCourse = new Course("Python", "Curso de Python", user);
         courseRepository.save(course);
+        courseRepository.save(otherCourse);
 
-        Task t = new Task(course, "O que aprendemos hoje?", 1, Type.OPEN_TEXT);
-        taskRepository.save(t);
+        taskRepository.saveAndFlush(new Task(course, "O que aprendemos hoje?", 1, Type.OPEN_TEXT));
+        taskRepository.saveAndFlush(new Task(otherCourse, "o que aprendemos hoje?", 1, Type.OPEN_TEXT));
 
-        boolean exists = taskRepository.existsByCourseAndStatement(course, "O que aprendemos hoje?");
-        assertThat(exists).isTrue();
-
-        boolean notExists = taskRepository.existsByCourseAndStatement(course, "Outro statement");
-        assertThat(notExists).isFalse();
+        assertThatThrownBy(() -> taskRepository.saveAndFlush(new Task(course, "O QUE APRENDEMOS HOJE?", 2, Type.OPEN_TEXT)))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .satisfies(e -> assertThat(((DataIntegrityViolationException) e).getMostSpecificCause().getMessage()).contains("uq_task_course_statement_hash"));
     }
 
     @Test
-    void countByCourseId__should_return_task_count() {
+    void findCreationProbe__should_return_course_status_task_count_and_matching_statements() {
         User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
         userRepository.save(user);
 
-        Course course1 = new Course("Java", "Curso de Java", user);
-        Course course2 = new Course("Python", "Curso de Python", user);
+        Course course = new Course("Java", "Curso de Java", user);
+        Course emptyCourse = new Course("Python", "Curso de Python", user);
+        courseRepository.save(course);
+        courseRepository.save(emptyCourse);
 
-        courseRepository.save(course1);
-        courseRepository.save(course2);
+        taskRepository.save(new Task(course, "Java Task 1", 1, Type.OPEN_TEXT));
+        taskRepository.save(new Task(course, "Java Task 2", 2, Type.OPEN_TEXT));
 
-        Task course1task1 = new Task(course1, "Java Task 1", 1, Type.OPEN_TEXT);
-        Task course1task2 = new Task(course1, "Java Task 2", 2, Type.OPEN_TEXT);
-        Task course2task1 = new Task(course2, "Python Task 1", 1, Type.OPEN_TEXT);
+        TaskCreationProbe existing = taskRepository.findCreationProbe(course.getId(), Task.hashStatement("java task 2")).orElseThrow();
+        assertThat(existing.getStatus()).isEqualTo(Status.BUILDING);
+        assertThat(existing.getCourseVersion()).isEqualTo(course.getVersion());
+        assertThat(existing.getTaskCount()).isEqualTo(2L);
+        assertThat(existing.statementExists()).isTrue();
 
-        taskRepository.save(course1task1);
-        taskRepository.save(course1task2);
-        taskRepository.save(course2task1);
+        TaskCreationProbe fresh = taskRepository.findCreationProbe(course.getId(), Task.hashStatement("Java Task 3")).orElseThrow();
+        assertThat(fresh.getTaskCount()).isEqualTo(2L);
+        assertThat(fresh.statementExists()).isFalse();
 
-        int countCourse1 = taskRepository.countByCourseId(course1.getId());
-        int countCourse2 = taskRepository.countByCourseId(course2.getId());
+        TaskCreationProbe empty = taskRepository.findCreationProbe(emptyCourse.getId(), Task.hashStatement("Java Task 1")).orElseThrow();
+        assertThat(empty.getTaskCount()).isEqualTo(0L);
+        assertThat(empty.statementExists()).isFalse();
 
-        assertThat(countCourse1).isEqualTo(2);
-        assertThat(countCourse2).isEqualTo(1);
+        assertThat(taskRepository.findCreationProbe(emptyCourse.getId() + 1000, Task.hashStatement("Java Task 1"))).isEmpty();
     }
 
     @Test
-    void findByCourseIdOrderByOrderIndexAsc__should_return_course_tasks_ordered_by_order_index_ascending() {
+    void findCreationRows__should_return_course_status_version_and_statement_hashes() {
         User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
         userRepository.save(user);
 
         Course course = new Course("Java", "Curso de Java", user);
+        Course emptyCourse = new Course("Python", "Curso de Python", user);
         courseRepository.save(course);
+        courseRepository.save(emptyCourse);
 
-        taskRepository.save(new Task(course, "Java Task 3", 3, Type.OPEN_TEXT));
         taskRepository.save(new Task(course, "Java Task 1", 1, Type.OPEN_TEXT));
         taskRepository.save(new Task(course, "Java Task 2", 2, Type.OPEN_TEXT));
 
-        List<Task> tasks = taskRepository.findByCourseIdOrderByOrderIndexAsc(course.getId());
+        TaskCreationState existing = TaskCreationState.of(taskRepository.findCreationRows(course.getId()));
+        assertThat(existing.status()).isEqualTo(Status.BUILDING);
+        assertThat(existing.courseVersion()).isEqualTo(course.getVersion());
+        assertThat(existing.taskCount()).isEqualTo(2);
+        assertThat(existing.statementExists(Task.hashStatement("java task 2"))).isTrue();
+        assertThat(existing.statementExists(Task.hashStatement("Java Task 3"))).isFalse();
+
+        TaskCreationState empty = TaskCreationState.of(taskRepository.findCreationRows(emptyCourse.getId()));
+        assertThat(empty.taskCount()).isEqualTo(0);
+        assertThat(empty.statementExists(Task.hashStatement("Java Task 1"))).isFalse();
+
+        assertThat(taskRepository.findCreationRows(emptyCourse.getId() + 1000)).isEmpty();
+    }
+
+    @Test
+    void findByCourseIdOrderByRankKeyAsc__should_return_course_tasks_ordered_by_rank_key_ascending() {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+
+        Course course = new Course("Java", "Curso de Java", user);
+        courseRepository.save(course);
+
+        taskRepository.save(new Task(course, "Java Task 3", 3000, Type.OPEN_TEXT));
+        taskRepository.save(new Task(course, "Java Task 1", 10, Type.OPEN_TEXT));
+        taskRepository.save(new Task(course, "Java Task 2", 2000, Type.OPEN_TEXT));
+
+        List<Task> tasks = taskRepository.findByCourseIdOrderByRankKeyAsc(course.getId());
 
         assertThat(tasks).hasSize(3);
-        assertThat(tasks.get(0).getOrderIndex()).isEqualTo(1);
         assertThat(tasks.get(0).getStatement()).isEqualTo("Java Task 1");
-        assertThat(tasks.get(1).getOrderIndex()).isEqualTo(2);
         assertThat(tasks.get(1).getStatement()).isEqualTo("Java Task 2");
-        assertThat(tasks.get(2).getOrderIndex()).isEqualTo(3);
         assertThat(tasks.get(2).getStatement()).isEqualTo("Java Task 3");
     }
 
     @Test
-    void shiftOrders__should_update_order_indexes() {
+    void findRankKeys__should_return_keys_in_window() {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+
+        Course course = new Course("Java", "Curso de Java", user);
+        courseRepository.save(course);
+
+        taskRepository.save(new Task(course, "Java Task 1", 100, Type.OPEN_TEXT));
+        taskRepository.save(new Task(course, "Java Task 2", 200, Type.OPEN_TEXT));
+        taskRepository.save(new Task(course, "Java Task 3", 300, Type.OPEN_TEXT));
+
+        assertThat(taskRepository.findRankKeys(course.getId(), 1, 2)).containsExactly(200L, 300L);
+        assertThat(taskRepository.findRankKeys(course.getId(), 2, 2)).containsExactly(300L);
+        assertThat(taskRepository.findRankKeys(course.getId(), 3, 2)).isEmpty();
+    }
+
+    @Test
+    void respaceRankKeys__should_spread_keys_keeping_order_after_negation() {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+
+        Course course = new Course("Java", "Curso de Java", user);
+        Course otherCourse = new Course("Python", "Curso de Python", user);
+        courseRepository.save(course);
+        courseRepository.save(otherCourse);
+
+        taskRepository.save(new Task(course, "Java Task 1", 1, Type.OPEN_TEXT));
+        taskRepository.save(new Task(course, "Java Task 2", 2, Type.OPEN_TEXT));
+        taskRepository.save(new Task(course, "Java Task 3", 3, Type.OPEN_TEXT));
+        taskRepository.save(new Task(otherCourse, "Python Task 1", 1, Type.OPEN_TEXT));
+
+        assertThat(taskRepository.negateRankKeys(course.getId())).isEqualTo(3);
+        assertThat(taskRepository.respaceRankKeys(course.getId(), TaskRank.GAP)).isEqualTo(3);
+
+        List<Task> updatedTasks = taskRepository.findByCourseIdOrderByRankKeyAsc(course.getId());
+        assertThat(updatedTasks).extracting(Task::getStatement)
+                .containsExactly("Java Task 1", "Java Task 2", "Java Task 3");
+        assertThat(updatedTasks).extracting(Task::getRankKey)
+                .containsExactly(TaskRank.GAP, 2 * TaskRank.GAP, 3 * TaskRank.GAP);
+        assertThat(taskRepository.findByCourseIdOrderByRankKeyAsc(otherCourse.getId()))
+                .extracting(Task::getRankKey).containsExactly(1L);
+    }
+
+    @Test
+    void updateRankKeys__should_move_tasks_in_one_statement_after_negating_them() {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+
+        Course course = new Course("Java", "Curso de Java", user);
+        courseRepository.save(course);
+
+        Task task1 = taskRepository.save(new Task(course, "Java Task 1", 100, Type.OPEN_TEXT));
+        Task task2 = taskRepository.save(new Task(course, "Java Task 2", 200, Type.OPEN_TEXT));
+        Task task3 = taskRepository.save(new Task(course, "Java Task 3", 300, Type.OPEN_TEXT));
+
+        // Swapping 1 and 3 reuses each other's keys, which only works once both are out of the way
+        Map<Long, Long> rankKeysById = Map.of(task1.getId(), 300L, task3.getId(), 100L);
+        assertThat(taskRepository.negateRankKeys(course.getId(), rankKeysById.keySet())).isEqualTo(2);
+        assertThat(taskRepository.updateRankKeys(course.getId(), rankKeysById)).isEqualTo(2);
+        entityManager.clear();
+
+        assertThat(taskRepository.findRankViewsByCourseIdOrderByRankKeyAsc(course.getId()))
+                .extracting(TaskRankView::getId)
+                .containsExactly(task3.getId(), task2.getId(), task1.getId());
+    }
+
+    @Test
+    void findListRowsByCourseId__should_return_rows_in_rank_order_with_options_grouped_by_task() {
+        User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
+        userRepository.save(user);
+
+        Course course = new Course("Java", "Curso de Java", user);
+        courseRepository.save(course);
+
+        Task single = new Task(course, "Qual linguagem usamos?", 5000, Type.SINGLE_CHOICE);
+        single.addOption(new TaskOption("Java", true));
+        single.addOption(new TaskOption("Python", false));
+        taskRepository.save(single);
+        taskRepository.save(new Task(course, "O que aprendemos hoje?", 10, Type.OPEN_TEXT));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TaskListItemDTO> items = TaskListItemDTO.fromRows(taskRepository.findListRowsByCourseId(course.getId()));
+
+        assertThat(items).extracting(TaskListItemDTO::getOrder).containsExactly(1, 2);
+        assertThat(items).extracting(TaskListItemDTO::getType).containsExactly(Type.OPEN_TEXT, Type.SINGLE_CHOICE);
+        assertThat(items.get(0).getOptions()).isEmpty();
+        assertThat(items.get(1).getOptions()).extracting(OptionListItemDTO::getOption).containsExactly("Java", "Python");
+        assertThat(items.get(1).getOptions()).extracting(OptionListItemDTO::getIsCorrect).containsExactly(true, false);
+    }
+
+    @Test
+    void findListRowsByCourseId__should_load_a_100_task_course_in_a_single_statement() throws Throwable {
         User user = new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR);
         userRepository.save(user);
 
         Course course = new Course("Java", "Curso de Java", user);
         courseRepository.save(course);
 
-        Task task1 = new Task(course, "Java Task 1", 1, Type.OPEN_TEXT);
-        Task task2 = new Task(course, "Java Task 2", 2, Type.OPEN_TEXT);
-        Task task3 = new Task(course, "Java Task 3", 3, Type.OPEN_TEXT);
-        Task task4 = new Task(course, "Java Task 4", 4, Type.OPEN_TEXT);
-
-        taskRepository.save(task1);
-        taskRepository.save(task2);
-        taskRepository.save(task3);
-        taskRepository.save(task4);
-
-        int rowsChanged = taskRepository.shiftOrders(course.getId(), 2);
-        assertThat(rowsChanged).isEqualTo(3);
-
-        List<Task> updatedTasks = taskRepository.findByCourseIdOrderByOrderIndexAsc(course.getId());
-        assertThat(updatedTasks).hasSize(4);
-        assertThat(updatedTasks.get(0).getOrderIndex()).isEqualTo(1);
-        assertThat(updatedTasks.get(1).getOrderIndex()).isEqualTo(3);
-        assertThat(updatedTasks.get(2).getOrderIndex()).isEqualTo(4);
-        assertThat(updatedTasks.get(3).getOrderIndex()).isEqualTo(5);
+        for (int i = 1; i <= 100; i++) {
+            Task task = new Task(course, "Java Task " + i, TaskRank.forPosition(i), Type.SINGLE_CHOICE);
+            task.addOption(new TaskOption("Java", true));
+            task.addOption(new TaskOption("Python", false));
+            taskRepository.save(task);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        assertStatements(1, () -> {
+            List<TaskListItemDTO> items = TaskListItemDTO.fromRows(taskRepository.findListRowsByCourseId(course.getId()));
+
+            assertThat(items).hasSize(100);
+            assertThat(items).allSatisfy(item -> assertThat(item.getOptions()).hasSize(2));
+        });
     }
 }
@@ -2,24 +2,43 @@ package br.com.alura.AluraFake.task;
 
 import br.com.alura.AluraFake.course.Course;
 import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.course.CourseTaskListCache;
+import br.com.alura.AluraFake.course.CourseWriteLocks;
 import br.com.alura.AluraFake.course.Status;
 import br.com.alura.AluraFake.task.dto.NewMultipleChoiceDTO;
 import br.com.alura.AluraFake.task.dto.NewOpenTextDTO;
 import br.com.alura.AluraFake.task.dto.NewSingleChoiceDTO;
+import br.com.alura.AluraFake.task.dto.NewTaskBatchDTO;
+import br.com.alura.AluraFake.task.dto.NewTaskBatchItemDTO;
 import br.com.alura.AluraFake.task.dto.OptionDTO;
+import br.com.alura.AluraFake.task.dto.TaskMoveDTO;
+import br.com.alura.AluraFake.task.dto.TaskOrderDTO;
 import br.com.alura.AluraFake.user.Role;
 import br.com.alura.AluraFake.user.User;
 import br.com.alura.AluraFake.util.ErrorItemDTO;
+import br.com.alura.AluraFake.util.OptimisticRetry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -35,9 +54,81 @@ class TaskServiceTest {
     @Mock
     private CourseRepository courseRepository;
 
+    @Mock
+    private CourseTaskListCache courseTaskListCache;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private TaskCreationMetrics taskCreationMetrics = new TaskCreationMetrics(meterRegistry);
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(mock(PlatformTransactionManager.class), 3, Duration.ZERO);
+
+    @Spy
+    private CourseStatementCache courseStatementCache = new CourseStatementCache(
+            courseId -> TaskCreationState.of(taskRepository.findCreationRows(courseId)), Runnable::run, 1000, Duration.ofMinutes(1));
+
+    @Spy
+    private CourseWriteLocks courseWriteLocks = new CourseWriteLocks(new SimpleMeterRegistry(), 16, Duration.ofSeconds(1));
+
+    @Captor
+    private ArgumentCaptor<List<Task>> savedTasksCaptor;
+
     @InjectMocks
     private TaskService taskService;
 
+    private void givenCreationState(long taskCount, boolean statementExists) {
+        byte[] existingHash = Task.hashStatement(sampleOpenTextDTO.getStatement());
+        when(taskRepository.findCreationProbe(eq(1L), any())).thenAnswer(invocation -> Optional.of(
+                creationProbe(taskCount, statementExists && Arrays.equals(existingHash, invocation.getArgument(1)))));
+        // What the cache loads once an insert commits
+        lenient().when(taskRepository.findCreationRows(1L)).thenReturn(List.of(creationRow(0L, null)));
+    }
+
+    private TaskCreationProbe creationProbe(long taskCount, boolean statementExists) {
+        return new TaskCreationProbe() {
+            @Override
+            public Status getStatus() {
+                return sampleCourse.getStatus();
+            }
+
+            @Override
+            public Long getCourseVersion() {
+                return 0L;
+            }
+
+            @Override
+            public Long getTaskCount() {
+                return taskCount;
+            }
+
+            @Override
+            public Long getStatementCount() {
+                return statementExists ? 1L : 0L;
+            }
+        };
+    }
+
+    private TaskCreationRow creationRow(long courseVersion, byte[] statementHash) {
+        return new TaskCreationRow() {
+            @Override
+            public Status getStatus() {
+                return sampleCourse.getStatus();
+            }
+
+            @Override
+            public Long getCourseVersion() {
+                return courseVersion;
+            }
+
+            @Override
+            public byte[] getStatementHash() {
+                return statementHash;
+            }
+        };
+    }
+
     private NewOpenTextDTO sampleOpenTextDTO;
     private NewSingleChoiceDTO sampleSingleChoiceDTO;
     private NewMultipleChoiceDTO sampleMultipleChoiceDTO;
@@ -80,6 +171,9 @@ class TaskServiceTest {
                 "Curso de Java",
                 new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR)
         );
+
+        // Only writes that get past validation claim the course
+        lenient().when(courseRepository.incrementVersion(anyLong(), any())).thenReturn(1);
     }
 
     // -----------------------
@@ -88,6 +182,20 @@ class TaskServiceTest {
 
     @Nested
     class GeneralTests {
+        @Test
+        void createNewTask__should_return_service_unavailable_when_course_write_lock_times_out() {
+            doReturn(Optional.empty()).when(courseWriteLocks).tryWithLock(eq(sampleOpenTextDTO.getCourseId()), any());
+
+            ResponseEntity<?> response = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+            assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            ErrorItemDTO body = (ErrorItemDTO) response.getBody();
+            assertNotNull(body);
+            assertEquals("courseId", body.getField());
+            verifyNoInteractions(courseRepository, taskRepository, optimisticRetry);
+        }
+
         @Test
         void createNewTask__should_return_bad_request_when_statement_length_under_4_chars() {
             String shortStatement = "abc";
@@ -95,8 +203,6 @@ class TaskServiceTest {
             sampleSingleChoiceDTO.setStatement(shortStatement);
             sampleMultipleChoiceDTO.setStatement(shortStatement);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-
             String expectedField = "statement";
             String expectedMessage = "Statement must be between 4 and 255 characters";
 
@@ -120,8 +226,7 @@ class TaskServiceTest {
             ErrorItemDTO multipleChoiceResponseBody = (ErrorItemDTO) singleChoiceResponse.getBody();
             assertEquals(expectedField, multipleChoiceResponseBody.getField());
             assertEquals(expectedMessage, multipleChoiceResponseBody.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -130,13 +235,8 @@ class TaskServiceTest {
             sampleOpenTextDTO.setStatement(minimumStatement);
             sampleSingleChoiceDTO.setStatement(minimumStatement);
             sampleMultipleChoiceDTO.setStatement(minimumStatement);
+            givenCreationState(0, false);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleOpenTextDTO.getStatement())).thenReturn(false);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
 
             ResponseEntity<?> openTextResponse = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
             assertEquals(HttpStatus.CREATED, openTextResponse.getStatusCode());
@@ -157,8 +257,6 @@ class TaskServiceTest {
             sampleSingleChoiceDTO.setStatement(longStatement);
             sampleMultipleChoiceDTO.setStatement(longStatement);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-
             String expectedField = "statement";
             String expectedMessage = "Statement must be between 4 and 255 characters";
 
@@ -185,8 +283,7 @@ class TaskServiceTest {
             ErrorItemDTO multipleChoiceResponseBody = (ErrorItemDTO) singleChoiceResponse.getBody();
             assertEquals(expectedField, multipleChoiceResponseBody.getField());
             assertEquals(expectedMessage, multipleChoiceResponseBody.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -195,13 +292,8 @@ class TaskServiceTest {
             sampleOpenTextDTO.setStatement(maximumStatement);
             sampleSingleChoiceDTO.setStatement(maximumStatement);
             sampleMultipleChoiceDTO.setStatement(maximumStatement);
+            givenCreationState(0, false);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleOpenTextDTO.getStatement())).thenReturn(false);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
 
             ResponseEntity<?> openTextResponse = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
             assertEquals(HttpStatus.CREATED, openTextResponse.getStatusCode());
@@ -221,11 +313,7 @@ class TaskServiceTest {
             sampleOpenTextDTO.setStatement(statement);
             sampleSingleChoiceDTO.setStatement(statement);
             sampleMultipleChoiceDTO.setStatement(statement);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleOpenTextDTO.getStatement())).thenReturn(true);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(true);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(true);
+            givenCreationState(0, true);
 
             String expectedField = "statement";
             String expectedMessage = "Statement already exists in this course";
@@ -264,11 +352,6 @@ class TaskServiceTest {
             sampleSingleChoiceDTO.setOrder(order);
             sampleMultipleChoiceDTO.setOrder(order);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleOpenTextDTO.getStatement())).thenReturn(false);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
             String expectedField = "order";
             String expectedMessage = "Order must be a positive integer";
 
@@ -295,24 +378,19 @@ class TaskServiceTest {
             ErrorItemDTO multipleChoiceResponseBody = (ErrorItemDTO) singleChoiceResponse.getBody();
             assertEquals(expectedField, multipleChoiceResponseBody.getField());
             assertEquals(expectedMessage, multipleChoiceResponseBody.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
-        void createNewTask__should_shift_order_and_save_when_inserted_in_middle() {
+        void createNewTask__should_save_between_neighbour_rank_keys_when_inserted_in_middle() {
             sampleOpenTextDTO.setOrder(3);
             sampleSingleChoiceDTO.setOrder(3);
             sampleMultipleChoiceDTO.setOrder(3);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+            givenCreationState(5, false);
 
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleOpenTextDTO.getStatement())).thenReturn(false);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
-            // Course already contains multiple tasks, insertion of the new task will cause a shift in the sequence
-            when(taskRepository.countByCourseId(1L)).thenReturn(5);
+            // Course already contains multiple tasks, the new task takes a key between the 2nd and 3rd ones
+            when(taskRepository.findRankKeys(1L, 1, 2)).thenReturn(List.of(2 * TaskRank.GAP, 3 * TaskRank.GAP));
 
             ResponseEntity<?> openTextResponse = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
             assertEquals(HttpStatus.CREATED, openTextResponse.getStatusCode());
@@ -323,24 +401,22 @@ class TaskServiceTest {
             ResponseEntity<?> multipleChoiceResponse = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
             assertEquals(HttpStatus.CREATED, multipleChoiceResponse.getStatusCode());
 
-            verify(taskRepository, times(3)).shiftOrders(1L, 3);
-            verify(taskRepository, times(3)).save(any(Task.class));
+            ArgumentCaptor<Task> captor = ArgumentCaptor.forClass(Task.class);
+            verify(taskRepository, times(3)).save(captor.capture());
+            assertTrue(captor.getAllValues().stream().allMatch(task -> task.getRankKey() == 2 * TaskRank.GAP + TaskRank.GAP / 2));
+            verify(taskRepository, never()).negateRankKeys(anyLong());
         }
 
         @Test
-        void createNewTask__singleChoice_should_create_when_order_is_append_no_shift() {
+        void createNewTask__should_save_after_last_rank_key_when_order_is_append() {
             sampleOpenTextDTO.setOrder(3);
             sampleSingleChoiceDTO.setOrder(3);
             sampleMultipleChoiceDTO.setOrder(3);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleOpenTextDTO.getStatement())).thenReturn(false);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(2, false);
 
             // Course already contains multiple tasks, insertion of the new task will only append the sequence
-            when(taskRepository.countByCourseId(1L)).thenReturn(2);
+            when(taskRepository.findRankKeys(1L, 1, 2)).thenReturn(List.of(2 * TaskRank.GAP));
 
             ResponseEntity<?> openTextResponse = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
             assertEquals(HttpStatus.CREATED, openTextResponse.getStatusCode());
@@ -351,8 +427,30 @@ class TaskServiceTest {
             ResponseEntity<?> multipleChoiceResponse = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
             assertEquals(HttpStatus.CREATED, multipleChoiceResponse.getStatusCode());
 
-            verify(taskRepository, times(0)).shiftOrders(anyLong(), anyInt());
-            verify(taskRepository, times(3)).save(any(Task.class));
+            ArgumentCaptor<Task> captor = ArgumentCaptor.forClass(Task.class);
+            verify(taskRepository, times(3)).save(captor.capture());
+            assertTrue(captor.getAllValues().stream().allMatch(task -> task.getRankKey() == 3 * TaskRank.GAP));
+            verify(taskRepository, never()).negateRankKeys(anyLong());
+        }
+
+        @Test
+        void createNewTask__should_respace_course_when_neighbour_rank_keys_are_adjacent() {
+            sampleOpenTextDTO.setOrder(2);
+            givenCreationState(2, false);
+            when(taskRepository.findRankKeys(1L, 0, 2))
+                    .thenReturn(List.of(7L, 8L))
+                    .thenReturn(List.of(TaskRank.GAP, 2 * TaskRank.GAP));
+
+            ResponseEntity<?> response = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+
+            InOrder inOrder = inOrder(taskRepository);
+            inOrder.verify(taskRepository).negateRankKeys(1L);
+            inOrder.verify(taskRepository).respaceRankKeys(1L, TaskRank.GAP);
+            ArgumentCaptor<Task> captor = ArgumentCaptor.forClass(Task.class);
+            inOrder.verify(taskRepository).save(captor.capture());
+            assertEquals(TaskRank.GAP + TaskRank.GAP / 2, captor.getValue().getRankKey());
+            verify(courseTaskListCache, times(1)).evict(1L);
         }
 
         @Test
@@ -360,9 +458,7 @@ class TaskServiceTest {
             sampleOpenTextDTO.setOrder(10);
             sampleSingleChoiceDTO.setOrder(10);
             sampleMultipleChoiceDTO.setOrder(10);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(7);
+            givenCreationState(7, false);
 
             String expectedField = "order";
             String expectedMessage = "Invalid order sequence";
@@ -398,7 +494,7 @@ class TaskServiceTest {
         void createNewTask__should_return_bad_request_when_course_published()  {
             sampleCourse.setStatus(Status.PUBLISHED);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+            givenCreationState(0, false);
 
             String expectedField = "status";
             String expectedMessage = "Course must be in BUILDING status to receive tasks";
@@ -518,7 +614,7 @@ class TaskServiceTest {
 
         @Test
         void createNewTask__should_return_not_found_when_course_missing() {
-            when(courseRepository.findById(1L)).thenReturn(Optional.empty());
+            when(taskRepository.findCreationProbe(eq(1L), any())).thenReturn(Optional.empty());
 
             ResponseEntity<?> openTextResponse = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
             assertEquals(HttpStatus.NOT_FOUND, openTextResponse.getStatusCode());
@@ -529,7 +625,159 @@ class TaskServiceTest {
             ResponseEntity<?> multipleChoiceResponse = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
             assertEquals(HttpStatus.NOT_FOUND, multipleChoiceResponse.getStatusCode());
 
-            verifyNoInteractions(taskRepository);
+            verify(taskRepository, never()).save(any());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Test
+        void createNewTask__should_report_every_request_error_without_touching_the_database() {
+            sampleSingleChoiceDTO.setStatement("abc");
+            sampleSingleChoiceDTO.setOrder(0);
+            sampleSingleChoiceDTO.setOptions(List.of(
+                    new OptionDTO("Java", true),
+                    new OptionDTO("Python", true)
+            ));
+
+            ResponseEntity<?> response = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+            List<ErrorItemDTO> errors = (List<ErrorItemDTO>) response.getBody();
+            assertNotNull(errors);
+            assertEquals(
+                    List.of("Statement must be between 4 and 255 characters",
+                            "Single choice must have exactly one correct option",
+                            "Order must be a positive integer"),
+                    errors.stream().map(ErrorItemDTO::getMessage).toList()
+            );
+
+            verifyNoInteractions(courseRepository, taskRepository);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Test
+        void createNewTask__should_report_duplicate_statement_and_order_from_one_query() {
+            sampleOpenTextDTO.setOrder(5);
+            givenCreationState(2, true);
+
+            ResponseEntity<?> response = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+            List<ErrorItemDTO> errors = (List<ErrorItemDTO>) response.getBody();
+            assertNotNull(errors);
+            assertEquals(
+                    List.of("Statement already exists in this course", "Invalid order sequence"),
+                    errors.stream().map(ErrorItemDTO::getMessage).toList()
+            );
+
+            verify(taskRepository, times(1)).findCreationProbe(eq(1L), any());
+            verify(taskRepository, never()).findCreationRows(any());
+            verify(taskRepository, never()).save(any());
+        }
+
+        @Test
+        void createNewTask__should_time_every_stage_by_type() {
+            givenCreationState(0, false);
+
+            ResponseEntity<?> response = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+
+            for (TaskCreationMetrics.Stage stage : TaskCreationMetrics.Stage.values()) {
+                assertEquals(1, stageTimer(stage, Type.OPEN_TEXT).count(), stage.name());
+                assertEquals(0, stageTimer(stage, Type.SINGLE_CHOICE).count(), stage.name());
+            }
+            verify(taskRepository, times(1)).flush();
+        }
+
+        @Test
+        void createNewTask__should_only_time_validation_when_request_invalid() {
+            sampleSingleChoiceDTO.setStatement("abc");
+
+            taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
+
+            assertEquals(1, stageTimer(TaskCreationMetrics.Stage.VALIDATE, Type.SINGLE_CHOICE).count());
+            assertEquals(0, stageTimer(TaskCreationMetrics.Stage.LOAD_STATE, Type.SINGLE_CHOICE).count());
+        }
+
+        private Timer stageTimer(TaskCreationMetrics.Stage stage, Type type) {
+            return meterRegistry.get("task.creation.stage")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .tag("type", type.name())
+                    .timer();
+        }
+
+        @Test
+        void createNewTask__should_retry_when_course_version_changed() {
+            givenCreationState(0, false);
+            when(courseRepository.incrementVersion(1L, 0L)).thenReturn(0, 1);
+
+            ResponseEntity<?> response = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
+
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+            verify(taskRepository, times(2)).findCreationProbe(eq(1L), any());
+            verify(taskRepository, times(1)).save(any(Task.class));
+        }
+
+        @Test
+        void createNewTask__should_check_only_first_of_consecutive_tasks_against_database() {
+            givenCreationState(0, false);
+            when(taskRepository.findCreationRows(1L))
+                    .thenReturn(List.of(creationRow(1L, Task.hashStatement(sampleOpenTextDTO.getStatement()))));
+            sampleSingleChoiceDTO.setStatement("Qual linguagem usamos?");
+            sampleSingleChoiceDTO.setOrder(2);
+            when(taskRepository.findRankKeys(1L, 0, 2)).thenReturn(List.of()).thenReturn(List.of(TaskRank.forPosition(1)));
+
+            assertEquals(HttpStatus.CREATED, taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT).getStatusCode());
+            assertEquals(HttpStatus.CREATED, taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE).getStatusCode());
+
+            // The first insert is checked with the one-row probe, and the cache loaded after it commits
+            verify(taskRepository, times(1)).findCreationProbe(eq(1L), any());
+            verify(taskRepository, times(1)).findCreationRows(1L);
+            verify(courseRepository).incrementVersion(1L, 0L);
+            verify(courseRepository).incrementVersion(1L, 1L);
+            assertEquals(2, courseStatementCache.getIfPresent(1L).taskCount());
+        }
+
+        @Test
+        void createNewTask__should_recheck_database_before_rejecting_from_cache() {
+            givenCreationState(0, false);
+            when(taskRepository.findCreationRows(1L))
+                    .thenReturn(List.of(creationRow(1L, Task.hashStatement(sampleOpenTextDTO.getStatement()))));
+
+            assertEquals(HttpStatus.CREATED, taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT).getStatusCode());
+            assertEquals(HttpStatus.CREATED, taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT).getStatusCode());
+
+            verify(taskRepository, times(2)).findCreationProbe(eq(1L), any());
+        }
+
+        @Test
+        void createNewTask__should_return_bad_request_when_statement_index_rejects_duplicate() {
+            givenCreationState(0, false);
+            doThrow(new DataIntegrityViolationException("could not execute statement",
+                    new SQLIntegrityConstraintViolationException("Duplicate entry for key 'uq_task_course_statement_hash'")))
+                    .when(taskRepository).flush();
+
+            ResponseEntity<?> response = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
+
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            ErrorItemDTO body = (ErrorItemDTO) response.getBody();
+            assertNotNull(body);
+            assertEquals("statement", body.getField());
+            assertNull(courseStatementCache.getIfPresent(1L));
+        }
+
+        @Test
+        void createNewTask__should_return_conflict_when_course_version_keeps_changing() {
+            givenCreationState(0, false);
+            when(courseRepository.incrementVersion(1L, 0L)).thenReturn(0);
+
+            ResponseEntity<?> response = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
+
+            assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+            ErrorItemDTO body = (ErrorItemDTO) response.getBody();
+            assertNotNull(body);
+            assertEquals("courseId", body.getField());
+            verify(courseRepository, times(3)).incrementVersion(1L, 0L);
+            verify(taskRepository, never()).save(any());
         }
     }
 
@@ -541,9 +789,7 @@ class TaskServiceTest {
     class OpenTextTests {
         @Test
         void createNewTask__openText_should_create_when_valid() {
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleOpenTextDTO.getStatement())).thenReturn(false);
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
+            givenCreationState(0, false);
 
             ResponseEntity<?> openTextResponse = taskService.createNewTask(sampleOpenTextDTO, Type.OPEN_TEXT);
 
@@ -567,10 +813,6 @@ class TaskServiceTest {
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -578,8 +820,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Single choice must have between 2 and 5 options", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -590,10 +831,7 @@ class TaskServiceTest {
             );
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
@@ -615,10 +853,6 @@ class TaskServiceTest {
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -626,8 +860,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Single choice must have between 2 and 5 options", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -641,10 +874,7 @@ class TaskServiceTest {
             );
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
@@ -662,10 +892,6 @@ class TaskServiceTest {
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -673,8 +899,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Single choice must have exactly one correct option", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -687,10 +912,6 @@ class TaskServiceTest {
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -698,8 +919,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Single choice must have exactly one correct option", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -713,10 +933,6 @@ class TaskServiceTest {
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -724,8 +940,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Each option must have between 4 and 80 characters", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -738,10 +953,7 @@ class TaskServiceTest {
             );
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
@@ -762,10 +974,6 @@ class TaskServiceTest {
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -773,8 +981,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Each option must have between 4 and 80 characters", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -788,10 +995,7 @@ class TaskServiceTest {
             );
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
@@ -809,10 +1013,6 @@ class TaskServiceTest {
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -820,8 +1020,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Options must be unique", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -835,10 +1034,6 @@ class TaskServiceTest {
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -846,8 +1041,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Options must not be equal to the statement", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -862,10 +1056,6 @@ class TaskServiceTest {
 
             sampleSingleChoiceDTO.setOptions(singleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -873,15 +1063,12 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Option text must not be null", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
         void createNewTask__singleChoice_should_create_when_valid() {
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleSingleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleSingleChoiceDTO, Type.SINGLE_CHOICE);
 
@@ -906,10 +1093,6 @@ class TaskServiceTest {
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -917,8 +1100,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Multiple choice must have between 3 and 5 options", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -930,10 +1112,7 @@ class TaskServiceTest {
             );
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
@@ -955,10 +1134,6 @@ class TaskServiceTest {
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -966,8 +1141,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Multiple choice must have between 3 and 5 options", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -981,10 +1155,7 @@ class TaskServiceTest {
             );
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
@@ -1005,10 +1176,6 @@ class TaskServiceTest {
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -1016,8 +1183,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Multiple choice must have two or more correct options and at least one incorrect option", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -1031,10 +1197,7 @@ class TaskServiceTest {
             );
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
@@ -1055,10 +1218,6 @@ class TaskServiceTest {
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -1066,8 +1225,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Multiple choice must have two or more correct options and at least one incorrect option", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -1081,10 +1239,7 @@ class TaskServiceTest {
             );
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
@@ -1105,10 +1260,6 @@ class TaskServiceTest {
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -1116,8 +1267,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Each option must have between 4 and 80 characters", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -1130,10 +1280,7 @@ class TaskServiceTest {
             );
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
@@ -1158,10 +1305,6 @@ class TaskServiceTest {
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -1169,8 +1312,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Each option must have between 4 and 80 characters", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -1188,10 +1330,7 @@ class TaskServiceTest {
             );
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
-
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
@@ -1211,10 +1350,6 @@ class TaskServiceTest {
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -1222,8 +1357,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Options must be unique", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -1239,10 +1373,6 @@ class TaskServiceTest {
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -1250,8 +1380,7 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Multiple choice must have two or more correct options and at least one incorrect option", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
@@ -1266,10 +1395,6 @@ class TaskServiceTest {
 
             sampleMultipleChoiceDTO.setOptions(multipleChoiceOptions);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
-
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
             assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
@@ -1277,15 +1402,12 @@ class TaskServiceTest {
             ErrorItemDTO body = (ErrorItemDTO) resp.getBody();
             assertEquals("options", body.getField());
             assertEquals("Option text must not be null", body.getMessage());
-
-            verify(taskRepository, never()).save(any());
+            verifyNoInteractions(courseRepository, taskRepository);
         }
 
         @Test
         void createNewTask__multipleChoice_should_create_when_valid() {
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
-            when(taskRepository.countByCourseId(1L)).thenReturn(0);
-            when(taskRepository.existsByCourseAndStatement(sampleCourse, sampleMultipleChoiceDTO.getStatement())).thenReturn(false);
+            givenCreationState(0, false);
 
             ResponseEntity<?> resp = taskService.createNewTask(sampleMultipleChoiceDTO, Type.MULTIPLE_CHOICE);
 
@@ -1293,5 +1415,377 @@ class TaskServiceTest {
 
             verify(taskRepository, times(1)).save(any(Task.class));
         }
+
+        private void assertSameAsLowercased(String statement, List<OptionDTO> options) {
+            for (Type type : List.of(Type.SINGLE_CHOICE, Type.MULTIPLE_CHOICE)) {
+                ErrorItemDTO fast = taskService.validateOptions(options, statement, type);
+                ErrorItemDTO lowercased = taskService.validateOptionsLowercased(options, statement, Type.SINGLE_CHOICE.equals(type));
+                assertEquals(lowercased == null ? null : lowercased.getMessage(), fast == null ? null : fast.getMessage(),
+                        () -> type + " " + options.stream().map(OptionDTO::getOption).toList());
+            }
+        }
+
+        @Test
+        void validateOptions__should_match_lowercased_comparison() {
+            String statement = "Quais linguagens são ensinadas?";
+            List<List<OptionDTO>> cases = List.of(
+                    List.of(new OptionDTO("Java", true), new OptionDTO("  JAVA\t", false), new OptionDTO("Python", true)),
+                    List.of(new OptionDTO("AÇÃO", true), new OptionDTO("ação", false), new OptionDTO("Ruby", true)),
+                    List.of(new OptionDTO("\tQUAIS linguagens SÃO ensinadas? ", true), new OptionDTO("Java", false), new OptionDTO("Ruby", true)),
+                    List.of(new OptionDTO(" abc ", true), new OptionDTO("Java", false), new OptionDTO("Ruby", true)),
+                    List.of(new OptionDTO("a".repeat(81), true), new OptionDTO("Java", false), new OptionDTO("Ruby", true)),
+                    List.of(new OptionDTO(" " + "a".repeat(80) + " ", true), new OptionDTO("Java", false), new OptionDTO("Ruby", true)),
+                    List.of(new OptionDTO("\u212Aotlin", true), new OptionDTO("kotlin", false), new OptionDTO("Java", true)),
+                    List.of(new OptionDTO("Straße", true), new OptionDTO("STRASSE", false), new OptionDTO("Java", true)),
+                    List.of(new OptionDTO("Java", true), new OptionDTO("Python", false), new OptionDTO("Ruby", false)),
+                    List.of(new OptionDTO("Java", true), new OptionDTO("Python", true), new OptionDTO("Ruby", false), new OptionDTO("Elixir", null)),
+                    List.of(new OptionDTO("Java", true), new OptionDTO("Python", true), new OptionDTO("Ruby", true))
+            );
+            List<OptionDTO> withNull = new ArrayList<>(List.of(new OptionDTO("Java", true), new OptionDTO("Ruby", false)));
+            withNull.add(1, new OptionDTO(null, false));
+
+            for (List<OptionDTO> options : cases) {
+                assertSameAsLowercased(statement, options);
+            }
+            assertSameAsLowercased(statement, withNull);
+            assertSameAsLowercased("\u0130stanbul é linda", List.of(
+                    new OptionDTO("istanbul é linda", true), new OptionDTO("Java", false), new OptionDTO("Ruby", true)));
+        }
+
+        @Test
+        void validateOptions__should_match_lowercased_comparison_in_turkish_locale() {
+            Locale previous = Locale.getDefault();
+            Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+            try {
+                assertSameAsLowercased("Qual o título?", List.of(
+                        new OptionDTO("TITLE", true), new OptionDTO("title", false), new OptionDTO("Java", true)));
+                assertNull(taskService.validateOptions(List.of(
+                        new OptionDTO("TITLE", true), new OptionDTO("title", false), new OptionDTO("Java", true)), "Qual o título?", Type.MULTIPLE_CHOICE));
+            } finally {
+                Locale.setDefault(previous);
+            }
+        }
+    }
+
+    // -----------------------
+    // Batch tests
+    // -----------------------
+
+    @Nested
+    class BatchTests {
+
+        private Task existingTask(Long id, String statement, int order) {
+            Task task = new Task(sampleCourse, statement, TaskRank.forPosition(order), Type.OPEN_TEXT);
+            ReflectionTestUtils.setField(task, "id", id);
+            return task;
+        }
+
+        @Test
+        void createTasksBatch__should_return_not_found_when_course_missing() {
+            when(courseRepository.findById(1L)).thenReturn(Optional.empty());
+
+            NewTaskBatchDTO batch = new NewTaskBatchDTO(List.of(
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "O que aprendemos hoje?", 1, null)
+            ));
+
+            ResponseEntity<?> response = taskService.createTasksBatch(1L, batch);
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+
+            verify(taskRepository, never()).saveAll(any());
+        }
+
+        @Test
+        void createTasksBatch__should_return_bad_request_when_course_published() {
+            sampleCourse.setStatus(Status.PUBLISHED);
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+
+            NewTaskBatchDTO batch = new NewTaskBatchDTO(List.of(
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "O que aprendemos hoje?", 1, null)
+            ));
+
+            ResponseEntity<?> response = taskService.createTasksBatch(1L, batch);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            assertEquals("status", ((ErrorItemDTO) response.getBody()).getField());
+
+            verify(taskRepository, never()).findByCourseIdOrderByRankKeyAsc(anyLong());
+            verify(taskRepository, never()).saveAll(any());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Test
+        void createTasksBatch__should_report_errors_for_each_invalid_item() {
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+            when(taskRepository.findByCourseIdOrderByRankKeyAsc(1L))
+                    .thenReturn(List.of(existingTask(10L, "Tarefa existente", 1)));
+
+            NewTaskBatchDTO batch = new NewTaskBatchDTO(List.of(
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "TAREFA EXISTENTE", 2, null),
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "Tarefa valida", 5, null),
+                    new NewTaskBatchItemDTO(Type.SINGLE_CHOICE, "Qual linguagem?", 2, List.of(
+                            new OptionDTO("Java", true),
+                            new OptionDTO("Python", true)
+                    )),
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "Outra tarefa valida", 3, null)
+            ));
+
+            ResponseEntity<?> response = taskService.createTasksBatch(1L, batch);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+            List<ErrorItemDTO> errors = (List<ErrorItemDTO>) response.getBody();
+            assertNotNull(errors);
+            assertEquals(
+                    List.of("tasks[0].statement", "tasks[1].order", "tasks[2].options"),
+                    errors.stream().map(ErrorItemDTO::getField).toList()
+            );
+
+            verify(taskRepository, never()).negateRankKeys(anyLong());
+            verify(taskRepository, never()).saveAll(any());
+            verifyNoInteractions(courseTaskListCache);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Test
+        void createTasksBatch__should_return_bad_request_when_statement_repeated_in_batch() {
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+            when(taskRepository.findByCourseIdOrderByRankKeyAsc(1L)).thenReturn(List.of());
+
+            NewTaskBatchDTO batch = new NewTaskBatchDTO(List.of(
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "O que aprendemos hoje?", 1, null),
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "  O que aprendemos hoje?  ", 2, null)
+            ));
+
+            ResponseEntity<?> response = taskService.createTasksBatch(1L, batch);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+            List<ErrorItemDTO> errors = (List<ErrorItemDTO>) response.getBody();
+            assertNotNull(errors);
+            assertEquals(1, errors.size());
+            assertEquals("tasks[1].statement", errors.getFirst().getField());
+            assertEquals("Statement already exists in this course", errors.getFirst().getMessage());
+        }
+
+        @Test
+        void createTasksBatch__should_place_new_tasks_between_existing_rank_keys_when_valid() {
+            Task first = existingTask(10L, "Primeira tarefa", 1);
+            Task second = existingTask(11L, "Segunda tarefa", 2);
+            Task third = existingTask(12L, "Terceira tarefa", 3);
+
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+            when(taskRepository.findByCourseIdOrderByRankKeyAsc(1L)).thenReturn(List.of(first, second, third));
+
+            NewTaskBatchDTO batch = new NewTaskBatchDTO(List.of(
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "Nova tarefa no meio", 2, null),
+                    new NewTaskBatchItemDTO(Type.MULTIPLE_CHOICE, "Nova tarefa no fim", 5, List.of(
+                            new OptionDTO("Java", true),
+                            new OptionDTO("Spring", true),
+                            new OptionDTO("Ruby", false)
+                    ))
+            ));
+
+            ResponseEntity<?> response = taskService.createTasksBatch(1L, batch);
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+
+            assertEquals(TaskRank.GAP, first.getRankKey());
+            assertEquals(2 * TaskRank.GAP, second.getRankKey());
+            assertEquals(3 * TaskRank.GAP, third.getRankKey());
+
+            verify(taskRepository, never()).negateRankKeys(anyLong());
+
+            verify(taskRepository, times(1)).saveAll(savedTasksCaptor.capture());
+            List<Task> saved = savedTasksCaptor.getValue();
+            assertEquals(2, saved.size());
+            assertEquals(TaskRank.GAP + TaskRank.GAP / 2, saved.get(0).getRankKey());
+            assertEquals(4 * TaskRank.GAP, saved.get(1).getRankKey());
+            assertEquals(3, saved.get(1).getOptions().size());
+            verify(courseTaskListCache, times(1)).evict(1L);
+        }
+
+        @Test
+        void createTasksBatch__should_not_respace_when_only_appending() {
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+            when(taskRepository.findByCourseIdOrderByRankKeyAsc(1L))
+                    .thenReturn(List.of(existingTask(10L, "Primeira tarefa", 1)));
+
+            NewTaskBatchDTO batch = new NewTaskBatchDTO(List.of(
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "Segunda tarefa", 2, null),
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "Terceira tarefa", 3, null)
+            ));
+
+            ResponseEntity<?> response = taskService.createTasksBatch(1L, batch);
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+
+            verify(taskRepository, never()).negateRankKeys(anyLong());
+            verify(taskRepository, times(1)).saveAll(any());
+        }
+
+        @Test
+        void createTasksBatch__should_respace_course_when_new_tasks_do_not_fit_between_keys() {
+            Task first = existingTask(10L, "Primeira tarefa", 1);
+            Task second = existingTask(11L, "Segunda tarefa", 2);
+            first.setRankKey(1L);
+            second.setRankKey(2L);
+
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+            when(taskRepository.findByCourseIdOrderByRankKeyAsc(1L)).thenReturn(List.of(first, second));
+
+            NewTaskBatchDTO batch = new NewTaskBatchDTO(List.of(
+                    new NewTaskBatchItemDTO(Type.OPEN_TEXT, "Nova tarefa no meio", 2, null)
+            ));
+
+            ResponseEntity<?> response = taskService.createTasksBatch(1L, batch);
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+
+            InOrder inOrder = inOrder(taskRepository);
+            inOrder.verify(taskRepository).negateRankKeys(1L);
+            inOrder.verify(taskRepository).respaceRankKeys(1L, TaskRank.GAP);
+            inOrder.verify(taskRepository).saveAll(savedTasksCaptor.capture());
+            assertEquals(TaskRank.GAP + TaskRank.GAP / 2, savedTasksCaptor.getValue().getFirst().getRankKey());
+        }
+    }
+
+    @Nested
+    class ReorderTests {
+
+        private TaskRankView rankView(Long id, long rankKey) {
+            return new TaskRankView() {
+                @Override
+                public Long getId() {
+                    return id;
+                }
+
+                @Override
+                public Long getRankKey() {
+                    return rankKey;
+                }
+            };
+        }
+
+        private void givenCourseWithTasks(TaskRankView... tasks) {
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+            when(taskRepository.findRankViewsByCourseIdOrderByRankKeyAsc(1L)).thenReturn(List.of(tasks));
+        }
+
+        @Test
+        void reorderTasks__should_return_not_found_when_course_missing() {
+            when(courseRepository.findById(1L)).thenReturn(Optional.empty());
+
+            ResponseEntity<?> response = taskService.reorderTasks(1L, TaskOrderDTO.ofTaskIds(List.of(10L)));
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+
+            verify(taskRepository, never()).updateRankKeys(anyLong(), any());
+        }
+
+        @Test
+        void reorderTasks__should_return_bad_request_when_course_published() {
+            sampleCourse.setStatus(Status.PUBLISHED);
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+
+            ResponseEntity<?> response = taskService.reorderTasks(1L, TaskOrderDTO.ofTaskIds(List.of(10L)));
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            assertEquals("status", ((ErrorItemDTO) response.getBody()).getField());
+        }
+
+        @Test
+        void reorderTasks__should_return_bad_request_when_both_task_ids_and_moves_given() {
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(sampleCourse));
+
+            TaskOrderDTO dto = TaskOrderDTO.ofTaskIds(List.of(10L));
+            dto.setMoves(List.of(new TaskMoveDTO(10L, 1)));
+
+            ResponseEntity<?> response = taskService.reorderTasks(1L, dto);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            assertEquals("Exactly one of taskIds or moves is required", ((ErrorItemDTO) response.getBody()).getMessage());
+        }
+
+        @Test
+        void reorderTasks__should_return_bad_request_when_task_ids_are_not_a_permutation() {
+            givenCourseWithTasks(rankView(10L, 100), rankView(11L, 200), rankView(12L, 300));
+
+            for (List<Long> taskIds : List.of(List.of(10L, 11L), List.of(10L, 11L, 11L), List.of(10L, 11L, 99L))) {
+                ResponseEntity<?> response = taskService.reorderTasks(1L, TaskOrderDTO.ofTaskIds(taskIds));
+                assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+                assertEquals("taskIds", ((ErrorItemDTO) response.getBody()).getField());
+            }
+
+            verify(taskRepository, never()).updateRankKeys(anyLong(), any());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Test
+        void reorderTasks__should_report_errors_for_each_invalid_move() {
+            givenCourseWithTasks(rankView(10L, 100), rankView(11L, 200));
+
+            TaskOrderDTO dto = TaskOrderDTO.ofMoves(List.of(
+                    new TaskMoveDTO(99L, 1),
+                    new TaskMoveDTO(10L, 3),
+                    new TaskMoveDTO(10L, 2)
+            ));
+
+            ResponseEntity<?> response = taskService.reorderTasks(1L, dto);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+            List<ErrorItemDTO> errors = (List<ErrorItemDTO>) response.getBody();
+            assertNotNull(errors);
+            assertEquals(List.of("moves[0].taskId", "moves[1].order"), errors.stream().map(ErrorItemDTO::getField).toList());
+
+            verify(taskRepository, never()).updateRankKeys(anyLong(), any());
+        }
+
+        @Test
+        void reorderTasks__should_write_only_the_moved_task_when_permutation_moves_one_task() {
+            givenCourseWithTasks(rankView(10L, 100), rankView(11L, 200), rankView(12L, 300), rankView(13L, 400));
+
+            ResponseEntity<?> response = taskService.reorderTasks(1L, TaskOrderDTO.ofTaskIds(List.of(13L, 10L, 11L, 12L)));
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+
+            InOrder inOrder = inOrder(taskRepository);
+            inOrder.verify(taskRepository).negateRankKeys(1L, Set.of(13L));
+            inOrder.verify(taskRepository).updateRankKeys(1L, Map.of(13L, 50L));
+            verify(courseTaskListCache, times(1)).evict(1L);
+        }
+
+        @Test
+        void reorderTasks__should_apply_moves_in_sequence() {
+            givenCourseWithTasks(rankView(10L, 100), rankView(11L, 200), rankView(12L, 300));
+
+            TaskOrderDTO dto = TaskOrderDTO.ofMoves(List.of(
+                    new TaskMoveDTO(12L, 1),
+                    new TaskMoveDTO(10L, 1)
+            ));
+
+            ResponseEntity<?> response = taskService.reorderTasks(1L, dto);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+
+            // Final order is 10, 12, 11: only 12 needs a new key between 100 and 200
+            verify(taskRepository).updateRankKeys(1L, Map.of(12L, 150L));
+        }
+
+        @Test
+        void reorderTasks__should_not_write_when_order_is_unchanged() {
+            givenCourseWithTasks(rankView(10L, 100), rankView(11L, 200));
+
+            ResponseEntity<?> response = taskService.reorderTasks(1L, TaskOrderDTO.ofTaskIds(List.of(10L, 11L)));
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+
+            verify(taskRepository, never()).negateRankKeys(anyLong(), any());
+            verify(taskRepository, never()).updateRankKeys(anyLong(), any());
+            verifyNoInteractions(courseTaskListCache);
+        }
+
+        @Test
+        void reorderTasks__should_respace_every_task_when_moved_task_does_not_fit() {
+            givenCourseWithTasks(rankView(10L, 1), rankView(11L, 2), rankView(12L, 3));
+
+            ResponseEntity<?> response = taskService.reorderTasks(1L, TaskOrderDTO.ofTaskIds(List.of(10L, 12L, 11L)));
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+
+            Map<Long, Long> expected = Map.of(
+                    10L, TaskRank.GAP,
+                    12L, 2 * TaskRank.GAP,
+                    11L, 3 * TaskRank.GAP
+            );
+            verify(taskRepository).negateRankKeys(1L, expected.keySet());
+            verify(taskRepository).updateRankKeys(1L, expected);
+        }
     }
 }
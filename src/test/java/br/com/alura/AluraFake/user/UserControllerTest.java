@@ -1,16 +1,31 @@
 package br.com.alura.AluraFake.user;
 
+import br.com.alura.AluraFake.util.KeysetPage;
+import br.com.alura.AluraFake.util.NdjsonQueryStreamer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.util.List;
 
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -23,9 +38,26 @@ class UserControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private NdjsonQueryStreamer ndjsonQueryStreamer;
+
+    @SpyBean
+    private UserEmailCache userEmailCache;
+
+    @MockBean
+    private UserImporter userImporter;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Value("${spring.mvc.async.request-timeout}")
+    private Duration asyncRequestTimeout;
+
+    @BeforeEach
+    void setup() {
+        userEmailCache.clear();
+    }
+
     @Test
     void newUser__should_return_bad_request_when_email_is_blank() throws Exception {
         NewUserDTO newUserDTO = new NewUserDTO();
@@ -88,17 +120,178 @@ class UserControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    void newUser__should_not_query_email_registered_through_this_instance() throws Exception {
+        NewUserDTO newUserDTO = new NewUserDTO();
+        newUserDTO.setEmail("caio.bugorin@alura.com.br");
+        newUserDTO.setName("Caio Bugorin");
+        newUserDTO.setRole(Role.STUDENT);
+
+        when(userRepository.existsByEmail(newUserDTO.getEmail())).thenReturn(false);
+
+        mockMvc.perform(post("/user/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUserDTO)))
+                .andExpect(status().isCreated());
+
+        newUserDTO.setEmail("Caio.Bugorin@alura.com.br");
+        mockMvc.perform(post("/user/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUserDTO)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Email já cadastrado no sistema"));
+
+        verify(userRepository, times(1)).existsByEmail(anyString());
+        verify(userRepository, times(1)).save(any(User.class));
+    }
+
+    @Test
+    void newUser__should_return_bad_request_when_email_constraint_rejects_insert() throws Exception {
+        NewUserDTO newUserDTO = new NewUserDTO();
+        newUserDTO.setEmail("caio.bugorin@alura.com.br");
+        newUserDTO.setName("Caio Bugorin");
+        newUserDTO.setRole(Role.STUDENT);
+
+        when(userRepository.existsByEmail(newUserDTO.getEmail())).thenReturn(false);
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Duplicate entry 'caio.bugorin@alura.com.br' for key 'UC_Email'")));
+
+        mockMvc.perform(post("/user/new")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUserDTO)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.field").value("email"))
+                .andExpect(jsonPath("$.message").value("Email já cadastrado no sistema"));
+
+        assertNull(userEmailCache.get(newUserDTO.getEmail()));
+    }
+
+    @Test
+    void importUsers__should_stream_report_for_csv_upload() throws Exception {
+        StreamingResponseBody body = out -> out.write("{\"line\":2,\"status\":\"CREATED\"}\n".getBytes(StandardCharsets.UTF_8));
+        when(userImporter.importUsers(any(), eq(UserImporter.Format.CSV))).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(post("/user/import")
+                        .contentType("text/csv")
+                        .content("name,email,role\nCaio,caio@alura.com.br,STUDENT\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"line\":2,\"status\":\"CREATED\"}\n"));
+    }
+
+    @Test
+    void importUsers__should_stream_with_configured_async_timeout() throws Exception {
+        when(userImporter.importUsers(any(), any())).thenReturn(out -> {});
+
+        MvcResult result = mockMvc.perform(post("/user/import")
+                        .contentType("text/csv")
+                        .content("name,email,role\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(asyncRequestTimeout.toMillis(), result.getRequest().getAsyncContext().getTimeout());
+    }
+
+    @Test
+    void importUsers__should_read_ndjson_upload() throws Exception {
+        when(userImporter.importUsers(any(), eq(UserImporter.Format.NDJSON))).thenReturn(out -> {});
+
+        mockMvc.perform(post("/user/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"Caio\"}\n"))
+                .andExpect(request().asyncStarted());
+
+        verify(userImporter).importUsers(any(), eq(UserImporter.Format.NDJSON));
+    }
+
+    @Test
+    void importUsers__should_reject_unsupported_upload_type() throws Exception {
+        mockMvc.perform(post("/user/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verifyNoInteractions(userImporter);
+    }
+
     @Test
     void listAllUsers__should_list_all_users() throws Exception {
-        User user1 = new User("User 1", "user1@test.com",Role.STUDENT);
-        User user2 = new User("User 2", "user2@test.com",Role.STUDENT);
-        when(userRepository.findAll()).thenReturn(Arrays.asList(user1, user2));
+        when(userRepository.findListItemsAfter(0L, Limit.of(KeysetPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(
+                new UserListItemDTO(1L, "User 1", "user1@test.com", Role.STUDENT),
+                new UserListItemDTO(2L, "User 2", "user2@test.com", Role.STUDENT)
+        ));
 
         mockMvc.perform(get("/user/all")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(KeysetPage.NEXT_CURSOR_HEADER))
                 .andExpect(jsonPath("$[0].name").value("User 1"))
+                .andExpect(jsonPath("$[0].id").doesNotExist())
                 .andExpect(jsonPath("$[1].name").value("User 2"));
+
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void listAllUsers__should_filter_by_role_and_return_next_cursor() throws Exception {
+        when(userRepository.findListItemsByRoleAfter(Role.INSTRUCTOR, 5L, Limit.of(2))).thenReturn(List.of(
+                new UserListItemDTO(7L, "User 7", "user7@test.com", Role.INSTRUCTOR),
+                new UserListItemDTO(9L, "User 9", "user9@test.com", Role.INSTRUCTOR)
+        ));
+
+        mockMvc.perform(get("/user/all")
+                        .param("role", "INSTRUCTOR")
+                        .param("limit", "1")
+                        .param("after", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(KeysetPage.NEXT_CURSOR_HEADER, "7"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].email").value("user7@test.com"));
+
+        verify(userRepository, never()).findListItemsAfter(anyLong(), any());
+    }
+
+    @Test
+    void listAllUsers__should_return_bad_request_when_limit_out_of_range() throws Exception {
+        mockMvc.perform(get("/user/all")
+                        .param("limit", String.valueOf(KeysetPage.MAX_LIMIT + 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.field").value("limit"));
+
+        verify(userRepository, never()).findListItemsAfter(anyLong(), any());
+    }
+
+    @Test
+    void listAllUsers__should_stream_ndjson_filtered_by_role() throws Exception {
+        StreamingResponseBody body = out -> out.write("{\"name\":\"User 1\"}\n".getBytes(StandardCharsets.UTF_8));
+        when(ndjsonQueryStreamer.stream(contains("WHERE role = ?"), any(), eq("STUDENT"))).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(get("/user/all")
+                        .param("role", "STUDENT")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"name\":\"User 1\"}\n"));
+    }
+
+    @Test
+    void listAllUsers__should_stream_with_configured_async_timeout() throws Exception {
+        when(ndjsonQueryStreamer.stream(anyString(), any())).thenReturn(out -> {});
+
+        MvcResult result = mockMvc.perform(get("/user/all")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(asyncRequestTimeout.toMillis(), result.getRequest().getAsyncContext().getTimeout());
     }
 
-}
\ No newline at end of file
+}
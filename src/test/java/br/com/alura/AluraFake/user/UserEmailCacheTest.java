@@ -0,0 +1,70 @@
+package br.com.alura.AluraFake.user;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserEmailCacheTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void mightBeRegistered__should_only_rule_out_emails_after_loading_known_ones() {
+        userRepository.saveAndFlush(new User("Caio", "caio@alura.com.br", Role.STUDENT));
+        UserEmailCache cache = new UserEmailCache(dataSource, Runnable::run, 100, 1000, 0.01);
+
+        assertTrue(cache.mightBeRegistered("sergio@alura.com.br"));
+
+        cache.loadKnownEmails();
+
+        assertTrue(cache.mightBeRegistered("CAIO@alura.com.br"));
+        assertFalse(cache.mightBeRegistered("sergio@alura.com.br"));
+    }
+
+    @Test
+    void put__should_cache_id_and_role_ignoring_email_case() {
+        User paulo = userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+        UserEmailCache cache = new UserEmailCache(dataSource, Runnable::run, 100, 1000, 0.01);
+        cache.loadKnownEmails();
+
+        cache.put(paulo);
+
+        UserEmailCache.CachedUser cached = cache.get(" Paulo@Alura.com.br");
+        assertEquals(paulo.getId(), cached.id());
+        assertTrue(cached.isInstructor());
+        assertTrue(cache.mightBeRegistered("paulo@alura.com.br"));
+        assertNull(cache.get("sergio@alura.com.br"));
+    }
+
+    @Test
+    void loadKnownEmails__should_scan_off_the_caller_and_keep_emails_registered_meanwhile() {
+        userRepository.saveAndFlush(new User("Caio", "caio@alura.com.br", Role.STUDENT));
+        List<Runnable> scheduled = new ArrayList<>();
+        UserEmailCache cache = new UserEmailCache(dataSource, scheduled::add, 100, 1000, 0.01);
+
+        cache.loadKnownEmails();
+        assertEquals(1, scheduled.size());
+        assertTrue(cache.mightBeRegistered("sergio@alura.com.br"));
+
+        // Registered here before the scan finished, and not in the rows it reads
+        cache.put(new User("Sergio", "sergio@alura.com.br", Role.STUDENT));
+        scheduled.getFirst().run();
+
+        assertTrue(cache.mightBeRegistered("caio@alura.com.br"));
+        assertTrue(cache.mightBeRegistered("sergio@alura.com.br"));
+        assertFalse(cache.mightBeRegistered("paulo@alura.com.br"));
+    }
+}
@@ -0,0 +1,169 @@
+package br.com.alura.AluraFake.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserImporterTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserImporter importer;
+
+    @BeforeEach
+    void setup() {
+        importer = new UserImporter(dataSource, transactionManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+                new UserEmailCache(null, Runnable::run, 100, 1000, 0.01), 2);
+    }
+
+    private String importUsers(String body, UserImporter.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        importer.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void importUsers__should_insert_valid_csv_rows_and_report_every_row() throws Exception {
+        userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+
+        String report = importUsers("""
+                name,email,role,password
+                Caio Bugorin,caio@alura.com.br,student,
+                Sergio,sergio@alura.com.br,INSTRUCTOR,abcdef
+                Paulo Silveira,PAULO@alura.com.br,INSTRUCTOR,
+                Caio Again,caio@alura.com.br,STUDENT,
+
+                Jo,not-an-email,TEACHER,
+                """, UserImporter.Format.CSV);
+
+        assertThat(report).isEqualTo("""
+                {"line":2,"email":"caio@alura.com.br","status":"CREATED"}
+                {"line":3,"email":"sergio@alura.com.br","status":"CREATED"}
+                {"line":4,"email":"PAULO@alura.com.br","status":"REJECTED","errors":[{"field":"email","message":"Email já cadastrado no sistema"}]}
+                {"line":5,"email":"caio@alura.com.br","status":"REJECTED","errors":[{"field":"email","message":"Email já cadastrado no sistema"}]}
+                {"line":7,"email":"not-an-email","status":"REJECTED","errors":[{"field":"email","message":"must be a well-formed email address"},{"field":"name","message":"length must be between 3 and 50"},{"field":"role","message":"Role must be one of [STUDENT, INSTRUCTOR]"}]}
+                """);
+
+        assertThat(userRepository.findByEmail("caio@alura.com.br").orElseThrow().getRole()).isEqualTo(Role.STUDENT);
+        assertThat(userRepository.findByEmail("caio@alura.com.br").orElseThrow().getPassword()).hasSize(6);
+        assertThat(userRepository.findByEmail("sergio@alura.com.br").orElseThrow().getPassword()).isEqualTo("abcdef");
+        assertThat(userRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void importUsers__should_reject_already_imported_rows_when_upload_is_resent() throws Exception {
+        String upload = """
+                name,email,role
+                Caio Bugorin,caio@alura.com.br,STUDENT
+                Sergio,sergio@alura.com.br,STUDENT
+                Paulo,paulo@alura.com.br,STUDENT
+                """;
+        importUsers(upload, UserImporter.Format.CSV);
+
+        String report = importUsers(upload, UserImporter.Format.CSV);
+
+        assertThat(report.lines()).hasSize(3)
+                .allMatch(line -> line.contains("\"status\":\"REJECTED\"") && line.contains("Email já cadastrado no sistema"));
+        assertThat(userRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void importUsers__should_reject_csv_without_required_columns() throws Exception {
+        String report = importUsers("name,mail\nCaio,caio@alura.com.br\n", UserImporter.Format.CSV);
+
+        assertThat(report).isEqualTo("""
+                {"line":1,"status":"REJECTED","errors":[{"field":"header","message":"Missing columns: email, role"}]}
+                """);
+        assertThat(userRepository.count()).isZero();
+    }
+
+    @Test
+    void importUsers__should_parse_ndjson_lines_independently() throws Exception {
+        String report = importUsers("""
+                {"name":"Caio Bugorin","email":"caio@alura.com.br","role":"STUDENT"}
+                {"name":"Sergio","email":
+                {"name":"Paulo","email":"paulo@alura.com.br","role":"ADMIN"}
+                {"name":"Paulo","email":"paulo@alura.com.br","role":"INSTRUCTOR","password":"123"}
+                """, UserImporter.Format.NDJSON);
+
+        assertThat(report).isEqualTo("""
+                {"line":1,"email":"caio@alura.com.br","status":"CREATED"}
+                {"line":2,"status":"REJECTED","errors":[{"field":"line","message":"Malformed JSON"}]}
+                {"line":3,"status":"REJECTED","errors":[{"field":"role","message":"Invalid value"}]}
+                {"line":4,"email":"paulo@alura.com.br","status":"REJECTED","errors":[{"field":"password","message":"Password must be exactly 6 characters long if provided"}]}
+                """);
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void importUsers__should_reject_ndjson_line_that_is_not_an_object() throws Exception {
+        String report = importUsers("""
+                null
+                {"name":"Caio Bugorin","email":"caio@alura.com.br","role":"STUDENT"}
+                """, UserImporter.Format.NDJSON);
+
+        assertThat(report).isEqualTo("""
+                {"line":1,"status":"REJECTED","errors":[{"field":"line","message":"Expected a JSON object"}]}
+                {"line":2,"email":"caio@alura.com.br","status":"CREATED"}
+                """);
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void importUsers__should_reject_email_longer_than_column() throws Exception {
+        String email = "a".repeat(40) + "@alura.com.br";
+
+        String report = importUsers("name,email,role\nCaio Bugorin," + email + ",STUDENT\n", UserImporter.Format.CSV);
+
+        assertThat(report).isEqualTo("""
+                {"line":2,"email":"%s","status":"REJECTED","errors":[{"field":"email","message":"length must be between 0 and 50"}]}
+                """.formatted(email));
+        assertThat(userRepository.count()).isZero();
+    }
+
+    @Test
+    void importUsers__should_report_rows_the_database_rejects_and_keep_going() throws Exception {
+        // No validation, so the long email only fails on the column
+        importer = new UserImporter(dataSource, transactionManager, mock(Validator.class), new ObjectMapper(),
+                new UserEmailCache(null, Runnable::run, 100, 1000, 0.01), 2);
+        String email = "a".repeat(40) + "@alura.com.br";
+
+        String report = importUsers("""
+                name,email,role
+                Caio Bugorin,%s,STUDENT
+                Sergio,sergio@alura.com.br,STUDENT
+                Paulo,paulo@alura.com.br,STUDENT
+                """.formatted(email), UserImporter.Format.CSV);
+
+        assertThat(report).isEqualTo("""
+                {"line":2,"email":"%s","status":"REJECTED","errors":[{"field":"line","message":"Rejected by the database"}]}
+                {"line":3,"email":"sergio@alura.com.br","status":"CREATED"}
+                {"line":4,"email":"paulo@alura.com.br","status":"CREATED"}
+                """.formatted(email));
+        assertThat(userRepository.count()).isEqualTo(2);
+    }
+}
@@ -3,8 +3,10 @@ package br.com.alura.AluraFake.user;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -38,4 +40,22 @@ class UserRepositoryTest {
         assertThat(userRepository.existsByEmail("sergio@alura.com.br")).isFalse();
     }
 
-}
\ No newline at end of file
+    @Test
+    void findListItemsByRoleAfter__should_page_by_id_within_role() {
+        userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+        userRepository.save(new User("Caio", "caio@alura.com.br", Role.STUDENT));
+        userRepository.save(new User("Sergio", "sergio@alura.com.br", Role.INSTRUCTOR));
+
+        List<UserListItemDTO> instructors = userRepository.findListItemsByRoleAfter(Role.INSTRUCTOR, 0L, Limit.of(10));
+        assertThat(instructors.stream().map(UserListItemDTO::getEmail).toList())
+                .isEqualTo(List.of("paulo@alura.com.br", "sergio@alura.com.br"));
+
+        Long firstId = instructors.get(0).getId();
+        List<UserListItemDTO> next = userRepository.findListItemsByRoleAfter(Role.INSTRUCTOR, firstId, Limit.of(10));
+        assertThat(next.size()).isEqualTo(1);
+        assertThat(next.get(0).getName()).isEqualTo("Sergio");
+
+        assertThat(userRepository.findListItemsAfter(0L, Limit.of(2)).size()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,42 @@
+package br.com.alura.AluraFake.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void next__should_split_plain_and_quoted_fields() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("name,email\r\n\"Bugorin, Caio\",\"caio \"\"c\"\"@alura.com.br\"\n"));
+
+        assertEquals(List.of("name", "email"), csv.next());
+        assertEquals(1, csv.recordLine());
+        assertEquals(List.of("Bugorin, Caio", "caio \"c\"@alura.com.br"), csv.next());
+        assertEquals(2, csv.recordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void next__should_keep_line_breaks_inside_quotes_and_count_lines() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("\"Caio\nBugorin\",1\n,\nPaulo,3"));
+
+        assertEquals(List.of("Caio\nBugorin", "1"), csv.next());
+        assertEquals(List.of("", ""), csv.next());
+        assertEquals(3, csv.recordLine());
+        assertEquals(List.of("Paulo", "3"), csv.next());
+        assertEquals(4, csv.recordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void next__should_fail_on_unclosed_quote() {
+        CsvReader csv = new CsvReader(new StringReader("\"Caio,1\n"));
+
+        assertThrows(IOException.class, csv::next);
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.alura.AluraFake.util;
+
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class NdjsonQueryStreamerTest {
+
+    record Row(String name, int row) {}
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void stream__should_write_one_json_line_per_row() throws Exception {
+        userRepository.save(new User("Caio", "caio@alura.com.br", Role.STUDENT));
+        userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+        entityManager.flush();
+
+        NdjsonQueryStreamer streamer = new NdjsonQueryStreamer(dataSource, new ObjectMapper());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        streamer.stream(
+                "SELECT name, role FROM User WHERE email LIKE ? ORDER BY name",
+                (rs, rowNum) -> new Row(rs.getString("name"), rowNum),
+                "%@alura.com.br"
+        ).writeTo(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"name":"Caio","row":0}
+                {"name":"Paulo","row":1}
+                """);
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.alura.AluraFake.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OptimisticRetryTest {
+
+    private PlatformTransactionManager transactionManager;
+    private OptimisticRetry retry;
+    private AtomicInteger attempts;
+
+    @BeforeEach
+    void setup() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        retry = new OptimisticRetry(transactionManager, 3, Duration.ofMillis(1));
+        attempts = new AtomicInteger();
+    }
+
+    private String failingTimes(int failures) {
+        if (attempts.incrementAndGet() <= failures) {
+            throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+        }
+        return "done";
+    }
+
+    @Test
+    void inTransaction__should_retry_in_a_new_transaction_after_version_conflict() {
+        assertEquals(Optional.of("done"), retry.inTransaction(() -> failingTimes(2)));
+
+        assertEquals(3, attempts.get());
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    void inTransaction__should_return_empty_when_attempts_run_out() {
+        assertEquals(Optional.empty(), retry.inTransaction(() -> failingTimes(3)));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void inTransaction__should_not_retry_other_failures() {
+        assertThrows(DataIntegrityViolationException.class, () -> retry.inTransaction(() -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("duplicate");
+        }));
+        assertEquals(1, attempts.get());
+    }
+}
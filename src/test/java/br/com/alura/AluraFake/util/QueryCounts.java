@@ -0,0 +1,52 @@
+package br.com.alura.AluraFake.util;
+
+import br.com.alura.AluraFake.infra.SqlStatementCounter;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.function.ThrowingSupplier;
+import org.mockito.invocation.Invocation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * Pins how many queries a piece of code runs. {@link #assertStatements} counts the SQL statements
+ * Hibernate really sends, so it needs a real database. Controller tests, whose repositories are
+ * mocks, can only count the invocations recorded on those mocks, which says nothing about SQL by
+ * itself; the repository tests pin each invoked method to its statements.
+ */
+public final class QueryCounts {
+
+    private QueryCounts() {}
+
+    public static void assertStatements(long expected, Executable work) throws Throwable {
+        assertStatements(expected, () -> {
+            work.execute();
+            return null;
+        });
+    }
+
+    public static <T> T assertStatements(long expected, ThrowingSupplier<T> work) throws Throwable {
+        SqlStatementCounter.start();
+        T result;
+        long statements;
+        try {
+            result = work.get();
+        } finally {
+            statements = SqlStatementCounter.stop();
+        }
+        assertEquals(expected, statements, "SQL statements");
+        return result;
+    }
+
+    /** Counts Mockito invocations on the given repository mocks, not SQL statements. */
+    public static void assertRepositoryInvocations(int expected, Object... repositoryMocks) {
+        List<String> invocations = Arrays.stream(repositoryMocks)
+                .flatMap(repository -> mockingDetails(repository).getInvocations().stream())
+                .map(Invocation::toString)
+                .toList();
+        assertEquals(expected, invocations.size(), () -> "Repository mock invocations: " + invocations);
+    }
+}